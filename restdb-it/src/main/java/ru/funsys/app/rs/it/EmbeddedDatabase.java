@@ -0,0 +1,98 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+
+/**
+ * Встроенная БД H2 в режиме совместимости с PostgreSQL, заменяющая БД сервиса при интеграционных
+ * и нагрузочных тестах. БД содержит синтетические таблицы {@code rp.structure_type} и {@code rp.users}
+ * заданного размера.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public final class EmbeddedDatabase {
+
+	/**
+	 * Максимальное число соединений пула, соответствует параметру {@code maxTotal} источника данных
+	 * в конфигурации контейнера ({@code cfg/restdb.xml})
+	 */
+	private static final int MAX_CONNECTIONS = 100;
+
+	/**
+	 * Размер порции пакетной вставки записей при заполнении таблиц
+	 */
+	private static final int BATCH = 1000;
+
+	private EmbeddedDatabase() {
+	}
+
+	/**
+	 * Создать БД в памяти и таблицы {@code rp.structure_type} и {@code rp.users}. Существующие таблицы
+	 * пересоздаются.
+	 *
+	 * @param name имя БД
+	 * @return источник данных БД с пулом соединений
+	 * @throws SQLException ошибка создания
+	 */
+	public static DataSource create(String name) throws SQLException {
+		JdbcConnectionPool dataSource = JdbcConnectionPool.create("jdbc:h2:mem:" + name
+				+ ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1", "", "");
+		dataSource.setMaxConnections(MAX_CONNECTIONS);
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("CREATE SCHEMA IF NOT EXISTS rp");
+			statement.execute("DROP TABLE IF EXISTS rp.structure_type");
+			statement.execute("DROP TABLE IF EXISTS rp.users");
+			statement.execute("CREATE TABLE rp.structure_type (st_id INTEGER NOT NULL, st_name VARCHAR(32) NOT NULL, "
+					+ "CONSTRAINT structure_type_pk PRIMARY KEY (st_id))");
+			statement.execute("CREATE TABLE rp.users (us_name VARCHAR(32) NOT NULL, us_last VARCHAR(32) NOT NULL, "
+					+ "us_email VARCHAR(64), CONSTRAINT users_pk PRIMARY KEY (us_name, us_last))");
+		}
+		return dataSource;
+	}
+
+	/**
+	 * Заполнить таблицы синтетическими записями: {@code rp.structure_type} - записи с ключами
+	 * {@code 1 ... types}, {@code rp.users} - записи с ключами {@code ("name" + i / 10, "last" + i % 10)}.
+	 *
+	 * @param dataSource источник данных БД
+	 * @param types число записей таблицы {@code rp.structure_type}
+	 * @param users число записей таблицы {@code rp.users}
+	 * @throws SQLException ошибка заполнения
+	 */
+	public static void seed(DataSource dataSource, int types, int users) throws SQLException {
+		try (Connection connection = dataSource.getConnection()) {
+			connection.setAutoCommit(false);
+			try (PreparedStatement statement = connection.prepareStatement("INSERT INTO rp.structure_type (st_id, st_name) VALUES (?, ?)")) {
+				for (int index = 1; index <= types; index++) {
+					statement.setInt(1, index);
+					statement.setString(2, "Type" + index);
+					statement.addBatch();
+					if (index % BATCH == 0) statement.executeBatch();
+				}
+				statement.executeBatch();
+			}
+			try (PreparedStatement statement = connection.prepareStatement("INSERT INTO rp.users (us_name, us_last, us_email) VALUES (?, ?, ?)")) {
+				for (int index = 0; index < users; index++) {
+					statement.setString(1, "name" + index / 10);
+					statement.setString(2, "last" + index % 10);
+					statement.setString(3, "user" + index + "@example.org");
+					statement.addBatch();
+					if ((index + 1) % BATCH == 0) statement.executeBatch();
+				}
+				statement.executeBatch();
+			}
+			connection.commit();
+		}
+	}
+
+}
@@ -0,0 +1,341 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Field;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.Principal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.sql.DataSource;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.SecurityContext;
+
+import org.glassfish.jersey.internal.MapPropertiesDelegate;
+import org.glassfish.jersey.server.ApplicationHandler;
+import org.glassfish.jersey.server.ContainerException;
+import org.glassfish.jersey.server.ContainerRequest;
+import org.glassfish.jersey.server.ContainerResponse;
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerResponseWriter;
+
+import ru.funsys.app.rs.TableService;
+
+/**
+ * Сервис {@link TableService}, выполняемый в процессе теста без контейнера сервлетов: HTTP запросы передаются
+ * непосредственно обработчику Jersey ({@link ApplicationHandler}), тело ответа накапливается в памяти.
+ * Цепочка обработки запроса (провайдеры, фильтры, асинхронное выполнение, сериализация ответа) совпадает
+ * с цепочкой обработки в контейнере сервлетов, исключается только сетевой обмен.
+ *
+ * <p>
+ * Сервис работает со встроенной БД через {@link JdbcAdapter}, транзакционные операции выполняются
+ * на источнике данных встроенной БД. Время ожидания асинхронного ответа (параметр {@code asyncTimeout})
+ * не контролируется.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class InProcessServer {
+
+	/**
+	 * Базовый URI сервиса
+	 */
+	private static final URI BASE = URI.create("http://localhost/restdb/rs/");
+
+	/**
+	 * Время ожидания ответа на запрос, секунд
+	 */
+	private static final long TIMEOUT = 60;
+
+	private static final SecurityContext ANONYMOUS = new SecurityContext() {
+
+		@Override
+		public Principal getUserPrincipal() {
+			return null;
+		}
+
+		@Override
+		public boolean isUserInRole(String role) {
+			return false;
+		}
+
+		@Override
+		public boolean isSecure() {
+			return false;
+		}
+
+		@Override
+		public String getAuthenticationScheme() {
+			return null;
+		}
+
+	};
+
+	private final TableService service;
+
+	private final ApplicationHandler handler;
+
+	/**
+	 * Контейнер приложения для уведомления о запуске и остановке приложения
+	 */
+	private final Container container = new Container() {
+
+		@Override
+		public ResourceConfig getConfiguration() {
+			return handler.getConfiguration();
+		}
+
+		@Override
+		public ApplicationHandler getApplicationHandler() {
+			return handler;
+		}
+
+		@Override
+		public void reload() {
+		}
+
+		@Override
+		public void reload(ResourceConfig configuration) {
+		}
+
+	};
+
+	/**
+	 * Признак запуска приложения
+	 */
+	private volatile boolean started;
+
+	/**
+	 * Создать сервис, работающий со встроенной БД.
+	 *
+	 * @param dataSource источник данных встроенной БД
+	 * @throws Exception ошибка создания
+	 */
+	public InProcessServer(DataSource dataSource) throws Exception {
+		service = new TableService();
+		set("database", new JdbcAdapter(dataSource));
+		set("dataSource", dataSource);
+		set("resource", "embedded");
+		service.setPackages("ru.funsys.app.rs.sql");
+		ResourceConfig config = new ResourceConfig();
+		config.register(service);
+		config.packages("ru.funsys.avalanche.rs.provider", "ru.funsys.app.rs.provider");
+		handler = new ApplicationHandler(config);
+	}
+
+	/**
+	 * Запустить приложение, как это делает контейнер сервлетов: уведомить слушателей запуска приложения
+	 * (прогрев сервиса). Вызывается при выполнении первого запроса, если не вызван явно, поэтому параметры
+	 * сервиса устанавливаются до выполнения запросов.
+	 */
+	public synchronized void start() {
+		if (started) return;
+		started = true;
+		handler.onStartup(container);
+	}
+
+	/**
+	 * Остановить приложение: уведомить слушателей остановки приложения.
+	 */
+	public synchronized void stop() {
+		if (!started) return;
+		started = false;
+		handler.onShutdown(container);
+	}
+
+	/**
+	 * Получить экземпляр сервиса, например, для установки параметров класса до выполнения запросов.
+	 *
+	 * @return экземпляр сервиса
+	 */
+	public TableService getService() {
+		return service;
+	}
+
+	/**
+	 * Установить значение параметра класса сервиса.
+	 *
+	 * @param name имя параметра
+	 * @param value значение параметра
+	 * @throws Exception параметр не найден
+	 */
+	public void set(String name, Object value) throws Exception {
+		Field field = TableService.class.getDeclaredField(name);
+		field.setAccessible(true);
+		field.set(service, value);
+	}
+
+	/**
+	 * Установить значение параметра класса сервиса, заданное строкой, аналогично определению параметра
+	 * в конфигурации приложения. Значение приводится к типу параметра: {@code int}, {@code long},
+	 * {@code boolean} или {@code String}.
+	 *
+	 * @param name имя параметра
+	 * @param value значение параметра
+	 * @throws Exception параметр не найден или значение не соответствует типу параметра
+	 */
+	public void setParameter(String name, String value) throws Exception {
+		Class<?> type = TableService.class.getDeclaredField(name).getType();
+		if (type == int.class) {
+			set(name, Integer.parseInt(value));
+		} else if (type == long.class) {
+			set(name, Long.parseLong(value));
+		} else if (type == boolean.class) {
+			set(name, Boolean.parseBoolean(value));
+		} else {
+			set(name, value);
+		}
+	}
+
+	/**
+	 * Выполнить HTTP запрос.
+	 *
+	 * @param method HTTP метод
+	 * @param path путь относительно базового URI сервиса, включая строку параметров, например,
+	 *        {@code data/table/rp.users?us_name=name1}
+	 * @param body тело запроса в формате JSON или {@code null}
+	 * @param headers пары имя заголовка, значение заголовка
+	 * @return ответ
+	 * @throws Exception ошибка выполнения запроса или время ожидания ответа истекло
+	 */
+	public Reply call(String method, String path, String body, String... headers) throws Exception {
+		if (!started) start();
+		ContainerRequest request = new ContainerRequest(BASE, BASE.resolve(path), method, ANONYMOUS, new MapPropertiesDelegate());
+		request.header(HttpHeaders.ACCEPT, "application/json");
+		if (body != null) {
+			request.header(HttpHeaders.CONTENT_TYPE, "application/json; charset=UTF-8");
+			request.setEntityStream(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+		}
+		for (int index = 0; index + 1 < headers.length; index += 2) {
+			request.getHeaders().putSingle(headers[index], headers[index + 1]);
+		}
+		Writer writer = new Writer();
+		request.setWriter(writer);
+		handler.handle(request);
+		try {
+			return writer.reply.get(TIMEOUT, TimeUnit.SECONDS);
+		} catch (ExecutionException e) {
+			throw new ContainerException(method + " " + path, e.getCause());
+		} catch (TimeoutException e) {
+			throw new TimeoutException(method + " " + path);
+		}
+	}
+
+	/**
+	 * Ответ на HTTP запрос
+	 */
+	public static class Reply {
+
+		private final int status;
+
+		private final MultivaluedMap<String, String> headers;
+
+		private final byte[] body;
+
+		private Reply(int status, MultivaluedMap<String, String> headers, byte[] body) {
+			this.status = status;
+			this.headers = headers;
+			this.body = body;
+		}
+
+		public int getStatus() {
+			return status;
+		}
+
+		public String getHeader(String name) {
+			return headers == null ? null : headers.getFirst(name);
+		}
+
+		public byte[] getBody() {
+			return body;
+		}
+
+		public String getText() {
+			return new String(body, StandardCharsets.UTF_8);
+		}
+
+		@Override
+		public String toString() {
+			return status + " " + getText();
+		}
+
+	}
+
+	/**
+	 * Запись ответа в память. Время ожидания приостановленного ответа отсчитывается, как это делает контейнер
+	 * сервлетов: по истечении вызывается обработчик истечения времени ожидания.
+	 */
+	private static class Writer implements ContainerResponseWriter {
+
+		private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "in-process-timeout");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		private final CompletableFuture<Reply> reply = new CompletableFuture<Reply>();
+
+		private TimeoutHandler timeoutHandler;
+
+		private ScheduledFuture<?> timeout;
+
+		private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+		private ContainerResponse response;
+
+		@Override
+		public OutputStream writeResponseStatusAndHeaders(long contentLength, ContainerResponse response) {
+			this.response = response;
+			return out;
+		}
+
+		@Override
+		public synchronized boolean suspend(long timeOut, TimeUnit timeUnit, TimeoutHandler timeoutHandler) {
+			this.timeoutHandler = timeoutHandler;
+			setSuspendTimeout(timeOut, timeUnit);
+			return true;
+		}
+
+		@Override
+		public synchronized void setSuspendTimeout(long timeOut, TimeUnit timeUnit) {
+			if (timeout != null) timeout.cancel(false);
+			timeout = timeOut > 0 && timeoutHandler != null ? TIMER.schedule(() -> timeoutHandler.onTimeout(this), timeOut, timeUnit) : null;
+		}
+
+		@Override
+		public void commit() {
+			setSuspendTimeout(0, TimeUnit.SECONDS);
+			if (response == null) {
+				reply.complete(new Reply(204, null, new byte[0]));
+			} else {
+				reply.complete(new Reply(response.getStatus(), response.getStringHeaders(), out.toByteArray()));
+			}
+		}
+
+		@Override
+		public void failure(Throwable error) {
+			setSuspendTimeout(0, TimeUnit.SECONDS);
+			reply.completeExceptionally(error);
+		}
+
+		@Override
+		public boolean enableResponseBuffering() {
+			return false;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+
+import javax.sql.DataSource;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+
+import ru.funsys.avalanche.sql.Adapter;
+import ru.funsys.avalanche.sql.ExecuteSet;
+
+/**
+ * Адаптер БД, выполняющий запросы непосредственно через JDBC без конфигурации Avalanche. Каждый запрос
+ * выполняется на отдельном соединении источника данных, результат запроса SELECT и метаданные БД выдаются
+ * отсоединенными ({@link CachedRowSet}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class JdbcAdapter extends Adapter {
+
+	private final DataSource dataSource;
+
+	private final RowSetFactory factory;
+
+	public JdbcAdapter(DataSource dataSource) throws SQLException {
+		super();
+		this.dataSource = dataSource;
+		this.factory = RowSetProvider.newFactory();
+	}
+
+	@Override
+	public ResultSet select(String sql, ArrayList<Object> parameters) throws Exception {
+		try (Connection connection = dataSource.getConnection(); PreparedStatement statement = prepare(connection, sql, parameters)) {
+			return populate(statement.executeQuery());
+		}
+	}
+
+	@Override
+	public ExecuteSet execute(String sql, ArrayList<Object> parameters) throws Exception {
+		long timer = System.currentTimeMillis();
+		try (Connection connection = dataSource.getConnection(); PreparedStatement statement = prepare(connection, sql, parameters)) {
+			int records = statement.executeUpdate();
+			long elapsed = System.currentTimeMillis() - timer;
+			return new ExecuteSet() {
+
+				@Override
+				public int getRecords() {
+					return records;
+				}
+
+				@Override
+				public long getTimer() {
+					return elapsed;
+				}
+
+			};
+		}
+	}
+
+	@Override
+	public ResultSet metadata(String name, Object... args) throws Exception {
+		try (Connection connection = dataSource.getConnection()) {
+			DatabaseMetaData metadata = connection.getMetaData();
+			switch (name) {
+			case "getPrimaryKeys":
+				return populate(metadata.getPrimaryKeys((String) args[0], (String) args[1], (String) args[2]));
+			case "getColumns":
+				return populate(metadata.getColumns((String) args[0], (String) args[1], (String) args[2], (String) args[3]));
+			case "getTables":
+				// типы таблиц передаются массивом, вложенным в массив аргументов
+				Object types = args[3] instanceof Object[] && !(args[3] instanceof String[]) ? ((Object[]) args[3])[0] : args[3];
+				return populate(metadata.getTables((String) args[0], (String) args[1], (String) args[2], (String[]) types));
+			default:
+				throw new SQLException("Unsupported metadata method " + name);
+			}
+		}
+	}
+
+	private static PreparedStatement prepare(Connection connection, String sql, ArrayList<Object> parameters) throws SQLException {
+		PreparedStatement statement = connection.prepareStatement(sql);
+		for (int index = 0; index < parameters.size(); index++) {
+			statement.setObject(index + 1, parameters.get(index));
+		}
+		return statement;
+	}
+
+	private CachedRowSet populate(ResultSet result) throws SQLException {
+		try {
+			CachedRowSet rowSet = factory.createCachedRowSet();
+			rowSet.populate(result);
+			return rowSet;
+		} finally {
+			result.close();
+		}
+	}
+
+}
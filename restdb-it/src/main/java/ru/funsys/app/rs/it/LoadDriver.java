@@ -0,0 +1,191 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Нагрузка на сервис заданным числом потоков в течение заданного времени. Каждый поток выполняет операции
+ * сценария без пауз, время выполнения операций после прогрева фиксируется, по завершении рассчитываются
+ * пропускная способность и перцентили времени выполнения.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class LoadDriver {
+
+	/**
+	 * Операция сценария нагрузки
+	 */
+	public interface Operation {
+
+		/**
+		 * Выполнить операцию.
+		 *
+		 * @param thread номер потока
+		 * @param iteration номер итерации потока
+		 * @throws Exception ошибка выполнения, операция учитывается как ошибочная
+		 */
+		void run(int thread, long iteration) throws Exception;
+
+	}
+
+	/**
+	 * Число потоков
+	 */
+	private final int threads;
+
+	/**
+	 * Время прогрева, миллисекунд
+	 */
+	private final long warmup;
+
+	/**
+	 * Время измерения, миллисекунд
+	 */
+	private final long duration;
+
+	public LoadDriver(int threads, long warmup, long duration) {
+		this.threads = threads;
+		this.warmup = warmup;
+		this.duration = duration;
+	}
+
+	/**
+	 * Выполнить сценарий нагрузки.
+	 *
+	 * @param name имя сценария
+	 * @param operation операция сценария
+	 * @return результат
+	 * @throws InterruptedException выполнение прервано
+	 */
+	public Result run(String name, Operation operation) throws InterruptedException {
+		long measure = System.nanoTime() + warmup * 1000000L;
+		long stop = measure + duration * 1000000L;
+		long[][] latencies = new long[threads][];
+		int[] counts = new int[threads];
+		AtomicLong errors = new AtomicLong();
+		AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+		CountDownLatch done = new CountDownLatch(threads);
+		for (int thread = 0; thread < threads; thread++) {
+			int number = thread;
+			Thread worker = new Thread(() -> {
+				long[] list = new long[1024];
+				int count = 0;
+				try {
+					for (long iteration = 0;; iteration++) {
+						long begin = System.nanoTime();
+						if (begin >= stop) break;
+						try {
+							operation.run(number, iteration);
+						} catch (Exception e) {
+							errors.incrementAndGet();
+							error.compareAndSet(null, e);
+							continue;
+						}
+						if (begin < measure) continue; // прогрев
+						if (count == list.length) list = Arrays.copyOf(list, count * 2);
+						list[count++] = System.nanoTime() - begin;
+					}
+				} finally {
+					latencies[number] = list;
+					counts[number] = count;
+					done.countDown();
+				}
+			}, name + "-" + thread);
+			worker.setDaemon(true);
+			worker.start();
+		}
+		done.await();
+		int total = 0;
+		for (int count : counts) total += count;
+		long[] all = new long[total];
+		int position = 0;
+		for (int thread = 0; thread < threads; thread++) {
+			System.arraycopy(latencies[thread], 0, all, position, counts[thread]);
+			position += counts[thread];
+		}
+		Arrays.sort(all);
+		return new Result(name, threads, duration, all, errors.get(), error.get());
+	}
+
+	/**
+	 * Результат выполнения сценария нагрузки
+	 */
+	public static class Result {
+
+		private final String name;
+
+		private final int threads;
+
+		private final long duration;
+
+		/**
+		 * Время выполнения операций, наносекунд, упорядочено по возрастанию
+		 */
+		private final long[] latencies;
+
+		private final long errors;
+
+		private final Throwable error;
+
+		private Result(String name, int threads, long duration, long[] latencies, long errors, Throwable error) {
+			this.name = name;
+			this.threads = threads;
+			this.duration = duration;
+			this.latencies = latencies;
+			this.errors = errors;
+			this.error = error;
+		}
+
+		public long getOperations() {
+			return latencies.length;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		/**
+		 * Получить первую ошибку выполнения операции.
+		 *
+		 * @return ошибка или {@code null}
+		 */
+		public Throwable getError() {
+			return error;
+		}
+
+		/**
+		 * Получить пропускную способность.
+		 *
+		 * @return число операций в секунду
+		 */
+		public double getThroughput() {
+			return latencies.length * 1000.0 / duration;
+		}
+
+		/**
+		 * Получить перцентиль времени выполнения операций.
+		 *
+		 * @param percent перцентиль, 0 - 100
+		 * @return время выполнения, миллисекунд
+		 */
+		public double getPercentile(double percent) {
+			if (latencies.length == 0) return 0;
+			int index = (int) Math.ceil(percent / 100 * latencies.length) - 1;
+			return latencies[Math.max(0, Math.min(index, latencies.length - 1))] / 1e6;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%-8s threads=%d ops=%d errors=%d throughput=%.1f/s p50=%.3fms p99=%.3fms max=%.3fms",
+					name, threads, latencies.length, errors, getThroughput(), getPercentile(50), getPercentile(99), getPercentile(100));
+		}
+
+	}
+
+}
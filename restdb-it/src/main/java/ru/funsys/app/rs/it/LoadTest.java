@@ -0,0 +1,113 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import javax.sql.DataSource;
+
+/**
+ * Нагрузочный тест сервиса со встроенной БД. Выполняет сценарии чтения записи по первичному ключу,
+ * пакетной вставки, модификации и удаления записей и выводит пропускную способность и перцентили
+ * времени выполнения каждого сценария.
+ *
+ * <p>
+ * Параметры теста задаются системными свойствами
+ * <ul>
+ * <li>{@code restdb.scenarios} - список сценариев через запятую, по умолчанию {@code read,insert,update,delete};</li>
+ * <li>{@code restdb.threads} - число потоков, по умолчанию 8;</li>
+ * <li>{@code restdb.warmup} - время прогрева сценария, миллисекунд, по умолчанию 2000;</li>
+ * <li>{@code restdb.duration} - время измерения сценария, миллисекунд, по умолчанию 10000;</li>
+ * <li>{@code restdb.types} - число записей таблицы {@code rp.structure_type}, по умолчанию 200000;</li>
+ * <li>{@code restdb.users} - число записей таблицы {@code rp.users}, по умолчанию 100000;</li>
+ * <li>{@code restdb.batch} - число записей в теле запроса пакетной вставки, по умолчанию 100;</li>
+ * <li>{@code restdb.service.<имя>} - значение параметра класса сервиса, например,
+ * {@code -Drestdb.service.sqlCacheSize=0}.</li>
+ * </ul>
+ *
+ * Пример запуска
+ * <pre>
+ * mvn -P it install
+ * java -Drestdb.threads=16 -cp "restdb-it/target/rest-db-it-1.0.0.jar:restdb-it/target/lib/*" ru.funsys.app.rs.it.LoadTest
+ * </pre>
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class LoadTest {
+
+	/**
+	 * Префикс системных свойств параметров класса сервиса
+	 */
+	private static final String SERVICE = "restdb.service.";
+
+	public static void main(String[] args) throws Exception {
+		String[] scenarios = System.getProperty("restdb.scenarios", "read,insert,update,delete").split(",");
+		int threads = Integer.getInteger("restdb.threads", 8);
+		long warmup = Long.getLong("restdb.warmup", 2000);
+		long duration = Long.getLong("restdb.duration", 10000);
+		int types = Integer.getInteger("restdb.types", 200000);
+		int users = Integer.getInteger("restdb.users", 100000);
+		int batch = Integer.getInteger("restdb.batch", 100);
+
+		DataSource dataSource = EmbeddedDatabase.create("restdb");
+		EmbeddedDatabase.seed(dataSource, types, users);
+		InProcessServer server = new InProcessServer(dataSource);
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if (name.startsWith(SERVICE)) server.setParameter(name.substring(SERVICE.length()), System.getProperty(name));
+		}
+		LoadDriver driver = new LoadDriver(threads, warmup, duration);
+		int groups = (users + 9) / 10;
+		for (String scenario : scenarios) {
+			LoadDriver.Result result;
+			switch (scenario.trim()) {
+			case "read":
+				result = driver.run("read", (thread, iteration) -> {
+					int user = ThreadLocalRandom.current().nextInt(users);
+					expect(server.call("GET", "data/table/rp.users?us_name=name" + user / 10 + "&us_last=last" + user % 10, null), 200);
+				});
+				break;
+			case "insert":
+				result = driver.run("insert", (thread, iteration) -> {
+					// ключи вставляемых записей следуют за ключами записей, созданных при заполнении таблицы
+					long first = types + 1 + (iteration * threads + thread) * batch;
+					StringBuilder body = new StringBuilder("[");
+					for (int index = 0; index < batch; index++) {
+						if (index > 0) body.append(',');
+						body.append("{\"st_id\":").append(first + index).append(",\"st_name\":\"Load").append(index).append("\"}");
+					}
+					expect(server.call("POST", "data/table/rp.structure_type", body.append(']').toString()), 200);
+				});
+				break;
+			case "update":
+				result = driver.run("update", (thread, iteration) -> {
+					int group = ThreadLocalRandom.current().nextInt(groups);
+					int last = ThreadLocalRandom.current().nextInt(Math.min(10, users - group * 10));
+					expect(server.call("PUT", "data/table/rp.users?us_name=name" + group + "&us_last=last" + last,
+							"[{\"us_email\":\"updated" + iteration + "@example.org\"}]"), 200);
+				});
+				break;
+			case "delete":
+				// каждый поток удаляет собственное подмножество записей rp.structure_type
+				result = driver.run("delete", (thread, iteration) -> {
+					long id = 1 + thread + iteration * threads;
+					if (id > types) throw new IllegalStateException("No more records to delete");
+					expect(server.call("DELETE", "data/table/rp.structure_type?st_id=" + id, null), 200);
+				});
+				break;
+			default:
+				throw new IllegalArgumentException("Unknown scenario " + scenario);
+			}
+			System.out.println(result);
+			for (Throwable error = result.getError(); error != null; error = error.getCause()) {
+				System.out.println("  " + error);
+			}
+		}
+	}
+
+	private static void expect(InProcessServer.Reply reply, int status) {
+		if (reply.getStatus() != status) throw new IllegalStateException(reply.toString());
+	}
+
+}
@@ -0,0 +1,85 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+import org.junit.Test;
+
+/**
+ * Тесты исполнителя методов сервиса.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class AsyncExecutorTest {
+
+	/**
+	 * Асинхронный ответ, фиксирующий возобновление обработки запроса
+	 *
+	 * @param resumed счетчик возобновлений
+	 * @return асинхронный ответ
+	 */
+	private static AsyncResponse response(CountDownLatch resumed) {
+		return (AsyncResponse) Proxy.newProxyInstance(AsyncExecutorTest.class.getClassLoader(),
+				new Class<?>[] {AsyncResponse.class}, (proxy, method, args) -> {
+					if ("resume".equals(method.getName())) {
+						resumed.countDown();
+						return true;
+					}
+					return method.getReturnType() == boolean.class ? false : null;
+				});
+	}
+
+	@Test
+	public void boundedQueue() throws Exception {
+		AsyncExecutor executor = new AsyncExecutor(1, 1);
+		CountDownLatch release = new CountDownLatch(1);
+		CountDownLatch resumed = new CountDownLatch(2);
+		AsyncExecutor.Work work = () -> {
+			release.await();
+			return Response.ok().build();
+		};
+		assertTrue(executor.execute(response(resumed), work, () -> {}));
+		assertTrue(executor.execute(response(resumed), work, () -> {}));
+		// выполняется один метод, один ожидает выполнения - третий не принимается
+		assertFalse(executor.execute(response(resumed), work, () -> {}));
+		release.countDown();
+		assertTrue(resumed.await(5, TimeUnit.SECONDS));
+		// после завершения методов исполнитель снова принимает методы
+		CountDownLatch next = new CountDownLatch(1);
+		assertTrue(executor.execute(response(next), work, () -> {}));
+		assertTrue(next.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+	}
+
+	@Test
+	public void shutdown() throws Exception {
+		AsyncExecutor executor = new AsyncExecutor(2, 10);
+		CountDownLatch resumed = new CountDownLatch(1);
+		assertTrue(executor.execute(response(resumed), () -> Response.ok().build(), () -> {}));
+		assertTrue(resumed.await(5, TimeUnit.SECONDS));
+		executor.shutdown();
+		Field field = AsyncExecutor.class.getDeclaredField("executor");
+		field.setAccessible(true);
+		ExecutorService service = (ExecutorService) field.get(executor);
+		assertTrue(service.awaitTermination(5, TimeUnit.SECONDS));
+		// метод, переданный остановленному исполнителю, завершается ошибкой
+		CountDownLatch rejected = new CountDownLatch(1);
+		assertTrue(executor.execute(response(rejected), () -> Response.ok().build(), () -> {}));
+		assertEquals(0, rejected.getCount());
+	}
+
+}
@@ -0,0 +1,59 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Proxy;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Тесты подсчета обработанных записей пакетного выполнения запроса.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class BatchStatementTest {
+
+	/**
+	 * Подготовленный запрос, выполнение порции которого возвращает заданный результат
+	 *
+	 * @param result результат {@code executeBatch}
+	 * @return подготовленный запрос
+	 */
+	private static PreparedStatement statement(int... result) {
+		return (PreparedStatement) Proxy.newProxyInstance(BatchStatementTest.class.getClassLoader(),
+				new Class<?>[] {PreparedStatement.class}, (proxy, method, args) -> {
+					return "executeBatch".equals(method.getName()) ? result : null;
+				});
+	}
+
+	@Test
+	public void count() throws Exception {
+		BatchStatement statement = new BatchStatement(statement(1, Statement.SUCCESS_NO_INFO, 0), 3);
+		statement.add(Arrays.asList(1));
+		statement.add(Arrays.asList(2));
+		statement.add(Arrays.asList(3));
+		assertEquals(2, statement.getCount());
+	}
+
+	@Test
+	public void executeFailed() throws Exception {
+		BatchStatement statement = new BatchStatement(statement(1, Statement.EXECUTE_FAILED), 2);
+		statement.add(Arrays.asList(1));
+		try {
+			statement.add(Arrays.asList(2));
+			fail();
+		} catch (BatchUpdateException e) {
+			assertEquals(0, statement.getCount());
+		}
+	}
+
+}
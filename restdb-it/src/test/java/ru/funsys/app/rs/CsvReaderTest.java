@@ -0,0 +1,56 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Тесты чтения записей в формате CSV.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class CsvReaderTest {
+
+	private static String toString(Reader reader) throws Exception {
+		StringBuilder builder = new StringBuilder();
+		int c;
+		while ((c = reader.read()) != -1) {
+			builder.append((char) c);
+		}
+		return builder.toString();
+	}
+
+	@Test
+	public void values() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader("a,\"b,\"\"c\"\"\",,\"\"\r\n\r\nx,y,z,w"));
+		assertEquals(Arrays.asList("a", "b,\"c\"", null, ""), csv.read());
+		assertEquals(Arrays.asList("x", "y", "z", "w"), csv.read());
+		assertNull(csv.read());
+	}
+
+	@Test
+	public void remainderAfterBareCarriageReturn() throws Exception {
+		// заголовок завершается символом \r, первый символ данных прочитан при разборе заголовка
+		CsvReader csv = new CsvReader(new BufferedReader(new StringReader("\uFEFF\r\nst_id,st_name\r\r\n41,Test41\r42,Test42\r")));
+		assertEquals(Arrays.asList("st_id", "st_name"), csv.read());
+		assertEquals("41,Test41\r42,Test42\r", toString(csv.getRemainder()));
+	}
+
+	@Test
+	public void emptyRemainder() throws Exception {
+		CsvReader csv = new CsvReader(new StringReader("st_id\n\n"));
+		assertEquals(Arrays.asList("st_id"), csv.read());
+		assertEquals("", toString(csv.getRemainder()));
+	}
+
+}
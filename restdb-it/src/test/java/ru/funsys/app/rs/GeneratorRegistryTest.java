@@ -0,0 +1,58 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Тесты реестра классов генераторов SQL запросов.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class GeneratorRegistryTest {
+
+	private final GeneratorRegistry registry = new GeneratorRegistry(Arrays.asList("ru.funsys.app.rs.sql"));
+
+	@Test
+	public void resolved() {
+		assertNotNull(registry.getMethod("TestQuery", "select", GeneratorRegistry.SELECT));
+		assertNotNull(registry.getMethod("TestQuery", "insert", GeneratorRegistry.EXECUTE));
+		assertEquals(3, registry.size());
+	}
+
+	@Test
+	public void missesCached() {
+		for (int repeat = 0; repeat < 2; repeat++) {
+			for (int index = 0; index < 100; index++) {
+				assertNull(registry.getGenerator("Missing" + index));
+				assertNull(registry.getMethod("Missing" + index, "select", GeneratorRegistry.SELECT));
+				assertNull(registry.getMethod("TestQuery", "missing" + index, GeneratorRegistry.SELECT));
+			}
+			assertNull(registry.getMethod("TestQuery", "insert", GeneratorRegistry.SELECT));
+			assertNull(registry.getGenerator(null));
+			// найденный класс TestQuery и отрицательные результаты, повторный поиск их не добавляет
+			assertEquals(1, registry.size());
+			assertEquals(301, registry.misses());
+		}
+		// найденный метод не заменяется отрицательным результатом
+		assertNotNull(registry.getMethod("TestQuery", "insert", GeneratorRegistry.EXECUTE));
+	}
+
+	@Test
+	public void missesBounded() {
+		for (int index = 0; index < GeneratorRegistry.MAX_MISSES + 100; index++) {
+			assertNull(registry.getGenerator("Missing" + index));
+		}
+		assertEquals(GeneratorRegistry.MAX_MISSES, registry.misses());
+		assertNull(registry.getGenerator("Missing" + GeneratorRegistry.MAX_MISSES));
+	}
+
+}
@@ -0,0 +1,69 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Тесты кэша метаданных таблиц.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class MetadataCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	/**
+	 * Кэш, в котором существуют только таблицы схемы rp
+	 */
+	private final MetadataCache cache = new MetadataCache(table -> {
+		loads.incrementAndGet();
+		if (!table.startsWith("rp.")) return new TableMetadata(new ArrayList<String>(), new ArrayList<String>(), new int[0]);
+		return new TableMetadata(new ArrayList<String>(Arrays.asList("id")), new ArrayList<String>(Arrays.asList("id")), new int[] {4});
+	});
+
+	@Test
+	public void cached() throws Exception {
+		cache.get("rp.users", 0);
+		cache.get("rp.users", 0);
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	public void caseInsensitive() throws Exception {
+		cache.get("rp.Users", 0);
+		cache.get("rp.users", 0);
+		assertEquals(1, loads.get());
+		assertEquals(1, cache.size());
+		cache.invalidate("Rp.USERS");
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void missingNotCached() throws Exception {
+		for (int index = 0; index < 100; index++) {
+			assertEquals(0, cache.get("missing.table" + index, 0).getColumns().size());
+		}
+		cache.get("missing.table0", 0);
+		assertEquals(101, loads.get());
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	public void bounded() throws Exception {
+		for (int index = 0; index < MetadataCache.MAX_ENTRIES + 10; index++) {
+			cache.get("rp.table" + index, 0);
+		}
+		assertEquals(MetadataCache.MAX_ENTRIES, cache.size());
+	}
+
+}
@@ -0,0 +1,82 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import ru.funsys.app.rs.it.EmbeddedDatabase;
+import ru.funsys.app.rs.it.InProcessServer;
+
+/**
+ * Тесты формы запроса - ключа кэша текстов SQL запросов.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class RequestShapeTest {
+
+	private static String shape(Object... items) {
+		StringBuilder key = new StringBuilder();
+		for (Object item : items) {
+			TableService.appendKey(key, item);
+		}
+		return key.toString();
+	}
+
+	@Test
+	public void fieldNamesAreSeparate() {
+		// одно поле "a, b" и два поля "a" и "b" одинаково представляются String.valueOf(list)
+		assertEquals(String.valueOf(Arrays.asList("a, b")), String.valueOf(Arrays.asList("a", "b")));
+		assertNotEquals(shape(Arrays.asList("a, b")), shape(Arrays.asList("a", "b")));
+		assertNotEquals(shape(Arrays.asList("a", "b"), Arrays.asList("c")), shape(Arrays.asList("a"), Arrays.asList("b", "c")));
+	}
+
+	@Test
+	public void countsAreSeparate() {
+		assertNotEquals(shape("ab", 23), shape("ab", 2, 3));
+		assertNotEquals(shape(Arrays.asList(1, 2)), shape(Arrays.asList(12)));
+	}
+
+	@Test
+	public void nullAndEmpty() {
+		assertNotEquals(shape((Object) null), shape("null"));
+		assertNotEquals(shape(Collections.emptyList()), shape(""));
+		assertEquals(shape(Arrays.asList("a", "b")), shape(new ArrayList<String>(Arrays.asList("a", "b"))));
+	}
+
+	@Test
+	public void multiRowInsertNotCached() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("shape");
+		EmbeddedDatabase.seed(dataSource, 1, 0);
+		InProcessServer server = new InProcessServer(dataSource);
+		try {
+			// каждый запрос вставляет на одну запись больше предыдущего
+			for (int count = 1; count <= 10; count++) {
+				StringBuilder body = new StringBuilder("[");
+				for (int index = 0; index < count; index++) {
+					if (index > 0) body.append(',');
+					body.append("{\"st_id\":").append(count * 100 + index).append(",\"st_name\":\"Shape\"}");
+				}
+				assertEquals(200, server.call("POST", "data/table/rp.structure_type", body.append(']').toString()).getStatus());
+			}
+			Field field = TableService.class.getDeclaredField("sqlCache");
+			field.setAccessible(true);
+			// в кэше только запрос вставки одной записи
+			assertEquals(1, ((SqlCache) field.get(server.getService())).size());
+		} finally {
+			server.stop();
+		}
+	}
+
+}
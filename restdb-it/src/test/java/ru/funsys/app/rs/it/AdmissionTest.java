@@ -0,0 +1,127 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+import org.junit.Test;
+
+import ru.funsys.app.rs.provider.RetryAfterFilter;
+
+/**
+ * Тесты ограничения числа одновременно выполняемых запросов (параметры {@code tableLimits},
+ * {@code endpointLimits}) и заголовка {@code Retry-After} ответа 503.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class AdmissionTest {
+
+	/**
+	 * Дождаться, когда сеанс БД будет ожидать блокировки, удерживаемой сеансом соединения.
+	 *
+	 * @param connection соединение, удерживающее блокировку
+	 * @throws Exception время ожидания истекло
+	 */
+	private static void awaitBlocked(Connection connection) throws Exception {
+		try (Statement statement = connection.createStatement()) {
+			for (int attempt = 0; attempt < 500; attempt++) {
+				try (ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID IS NOT NULL")) {
+					result.next();
+					if (result.getInt(1) > 0) return;
+				}
+				Thread.sleep(10);
+			}
+		}
+		fail("no blocked session");
+	}
+
+	@Test
+	public void tableLimit() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("admission");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("tableLimits", "rp.structure_type=1");
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (Connection lock = dataSource.getConnection(); Statement statement = lock.createStatement()) {
+			// ожидание блокировки не прерывается до завершения проверки
+			statement.execute("SET DEFAULT_LOCK_TIMEOUT 10000");
+			lock.setAutoCommit(false);
+			// модификация записи ожидает блокировки и занимает единственное разрешение таблицы
+			statement.executeQuery("SELECT * FROM rp.structure_type WHERE st_id = 1 FOR UPDATE").close();
+			Future<InProcessServer.Reply> update = executor.submit(() ->
+					server.call("PUT", "data/table/rp.structure_type?st_id=1", "[{\"st_name\":\"Locked1\"}]"));
+			awaitBlocked(lock);
+			TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?st_id=2", null));
+			// ограничение других таблиц не затрагивается
+			assertEquals(200, server.call("GET", "data/table/rp.users?us_name=name0&us_last=last1", null).getStatus());
+			lock.commit();
+			assertEquals(200, update.get(10, TimeUnit.SECONDS).getStatus());
+		} finally {
+			executor.shutdownNow();
+		}
+		// разрешение освобождено по завершении запроса
+		assertEquals("[{\"st_id\":1,\"st_name\":\"Locked1\"}]", server.call("GET", "data/table/rp.structure_type?st_id=1", null).getText());
+		String metrics = server.call("GET", "data/metrics", null, "Accept", "text/plain").getText();
+		assertTrue(metrics, metrics.contains("restdb_errors_total{code=\"RST0034E\"} "));
+	}
+
+	@Test
+	public void retryAfter() throws Exception {
+		RetryAfterFilter filter = new RetryAfterFilter();
+		Field field = RetryAfterFilter.class.getDeclaredField("configuration");
+		field.setAccessible(true);
+		field.set(filter, Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {Configuration.class},
+				(proxy, method, args) -> "getProperty".equals(method.getName()) ? "5" : null));
+		assertEquals("5", filter(filter, 503).getFirst("Retry-After"));
+		// заголовок добавляется только к ответу 503
+		assertNull(filter(filter, 500).getFirst("Retry-After"));
+	}
+
+	/**
+	 * Применить фильтр к ответу с кодом ответа.
+	 *
+	 * @param filter фильтр
+	 * @param status код ответа
+	 * @return заголовки ответа после фильтра
+	 * @throws Exception ошибка фильтра
+	 */
+	private static MultivaluedMap<String, Object> filter(RetryAfterFilter filter, int status) throws Exception {
+		MultivaluedMap<String, Object> headers = new MultivaluedHashMap<String, Object>();
+		ContainerResponseContext response = (ContainerResponseContext) Proxy.newProxyInstance(AdmissionTest.class.getClassLoader(),
+				new Class<?>[] {ContainerResponseContext.class}, (proxy, method, args) -> {
+					switch (method.getName()) {
+					case "getStatus":
+						return status;
+					case "getHeaders":
+						return headers;
+					default:
+						return null;
+					}
+				});
+		filter.filter((ContainerRequestContext) null, response);
+		return headers;
+	}
+
+}
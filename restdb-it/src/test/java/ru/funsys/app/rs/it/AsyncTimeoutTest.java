@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.junit.Test;
+
+/**
+ * Тесты истечения времени ожидания результата метода сервиса (параметр {@code asyncTimeout}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class AsyncTimeoutTest {
+
+	@Test
+	public void streamReleasedAfterTimeout() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("timeout");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		// пул потоковой выдачи из одного соединения, занятого тестом
+		JdbcConnectionPool pool = JdbcConnectionPool.create("jdbc:h2:mem:timeout", "", "");
+		pool.setMaxConnections(1);
+		pool.setLoginTimeout(10);
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("dataSource", pool);
+		server.set("streaming", true);
+		server.set("asyncThreads", 1);
+		server.set("asyncTimeout", 1);
+		try {
+			try (Connection connection = pool.getConnection()) {
+				// метод ожидает соединения дольше asyncTimeout, ответ 503 отправляется до получения результата
+				TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?st_id=1", null));
+			}
+			// результат метода, полученный после отправки ответа, освобождает соединение: следующий метод
+			// выполняется тем же потоком после завершения предыдущего и получает единственное соединение пула
+			server.set("asyncTimeout", 0);
+			InProcessServer.Reply reply = server.call("GET", "data/table/rp.structure_type?st_id=2", null);
+			assertEquals(200, reply.getStatus());
+			assertEquals("[{\"st_id\":2,\"st_name\":\"Type2\"}]", reply.getText());
+			assertEquals(0, pool.getActiveConnections());
+		} finally {
+			server.stop();
+			pool.dispose();
+		}
+	}
+
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import javax.sql.DataSource;
+import javax.xml.bind.annotation.XmlSeeAlso;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ru.funsys.app.rs.BeanResponse;
+import ru.funsys.app.rs.BeanResponseBulk;
+
+/**
+ * Тесты выполнения пакета операций в одной транзакции (метод {@code data/batch}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class BatchTest {
+
+	private static InProcessServer server;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("batch");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		server = new InProcessServer(dataSource);
+	}
+
+	@Test
+	public void batch() throws Exception {
+		InProcessServer.Reply reply = server.call("POST", "data/batch",
+				"[{\"operation\":\"post\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":101,\"st_name\":\"Batch101\"}]},"
+				+ "{\"operation\":\"put\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":1,\"st_name\":\"Batch1\"},{\"st_id\":999,\"st_name\":\"Batch999\"}]},"
+				+ "{\"operation\":\"delete\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":2}]}]");
+		assertEquals(200, reply.getStatus());
+		String text = reply.getText();
+		assertTrue(text, text.contains("\"query\":\"INSERT\",\"result\":1"));
+		assertTrue(text, text.contains("\"notFound\":[{\"st_id\":999}]"));
+		assertTrue(text, text.contains("\"query\":\"DELETE\",\"result\":1"));
+		assertEquals("[{\"st_id\":101,\"st_name\":\"Batch101\"}]", server.call("GET", "data/table/rp.structure_type?st_id=101", null).getText());
+		assertEquals("[{\"st_id\":1,\"st_name\":\"Batch1\"}]", server.call("GET", "data/table/rp.structure_type?st_id=1", null).getText());
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=2", null).getText());
+	}
+
+	@Test
+	public void notFoundXml() throws Exception {
+		// реализация JAXB в тестах недоступна, проверяется регистрация подкласса для списка результатов
+		XmlSeeAlso known = BeanResponse.class.getAnnotation(XmlSeeAlso.class);
+		assertNotNull(known);
+		assertTrue(Arrays.asList(known.value()).contains(BeanResponseBulk.class));
+	}
+
+	@Test
+	public void rollback() throws Exception {
+		// вторая операция нарушает первичный ключ, вставка первой операции откатывается
+		TableServiceTest.assertFailure(() -> server.call("POST", "data/batch",
+				"[{\"operation\":\"post\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":102,\"st_name\":\"Batch102\"}]},"
+				+ "{\"operation\":\"post\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":3,\"st_name\":\"Duplicate3\"}]}]"));
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=102", null).getText());
+		assertEquals("[{\"st_id\":3,\"st_name\":\"Type3\"}]", server.call("GET", "data/table/rp.structure_type?st_id=3", null).getText());
+	}
+
+	@Test
+	public void invalidOperation() throws Exception {
+		TableServiceTest.assertFailure(() -> server.call("POST", "data/batch",
+				"[{\"operation\":\"post\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":103,\"st_name\":\"Batch103\"}]},"
+				+ "{\"operation\":\"merge\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":104}]}]"));
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=103", null).getText());
+	}
+
+}
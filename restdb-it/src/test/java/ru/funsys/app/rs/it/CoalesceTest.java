@@ -0,0 +1,37 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+/**
+ * Тесты объединения одновременно выполняемых одинаковых запросов.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class CoalesceTest {
+
+	@Test
+	public void concurrentReads() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("coalesce");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("coalesce", true);
+		String expected = server.call("GET", "data/table/rp.structure_type?st_id=5", null).getText();
+		LoadDriver.Result result = new LoadDriver(8, 0, 300).run("coalesce", (thread, iteration) -> {
+			InProcessServer.Reply reply = server.call("GET", "data/table/rp.structure_type?st_id=5", null);
+			if (reply.getStatus() != 200 || !expected.equals(reply.getText())) throw new IllegalStateException(reply.toString());
+		});
+		assertEquals(String.valueOf(result.getError()), 0, result.getErrors());
+		// после фиксации модификации объединенный запрос получает новый результат
+		server.call("PUT", "data/table/rp.structure_type?st_id=5", "[{\"st_name\":\"Changed5\"}]");
+		assertEquals("[{\"st_id\":5,\"st_name\":\"Changed5\"}]", server.call("GET", "data/table/rp.structure_type?st_id=5", null).getText());
+	}
+
+}
@@ -0,0 +1,73 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import javax.sql.DataSource;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Тесты условных запросов GET (заголовки ETag и If-None-Match).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class ConditionalGetTest {
+
+	private static DataSource dataSource;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		dataSource = EmbeddedDatabase.create("etag");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+	}
+
+	private static InProcessServer server(String etag) throws Exception {
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("etag", etag);
+		return server;
+	}
+
+	@Test
+	public void noneByDefault() throws Exception {
+		InProcessServer server = new InProcessServer(dataSource);
+		assertNull(server.call("GET", "data/table/rp.structure_type?st_id=1", null).getHeader("ETag"));
+	}
+
+	@Test
+	public void hash() throws Exception {
+		InProcessServer server = server("hash");
+		InProcessServer.Reply reply = server.call("GET", "data/table/rp.structure_type?st_id=1", null);
+		String tag = reply.getHeader("ETag");
+		assertNotNull(tag);
+		InProcessServer.Reply notModified = server.call("GET", "data/table/rp.structure_type?st_id=1", null, "If-None-Match", tag);
+		assertEquals(304, notModified.getStatus());
+		assertEquals(0, notModified.getBody().length);
+		// тег другого результата не совпадает
+		reply = server.call("GET", "data/table/rp.structure_type?st_id=2", null, "If-None-Match", tag);
+		assertEquals(200, reply.getStatus());
+		assertNotEquals(tag, reply.getHeader("ETag"));
+	}
+
+	@Test
+	public void version() throws Exception {
+		InProcessServer server = server("version");
+		InProcessServer.Reply reply = server.call("GET", "data/table/rp.structure_type?st_id=3", null);
+		String tag = reply.getHeader("ETag");
+		assertNotNull(tag);
+		assertEquals(304, server.call("GET", "data/table/rp.structure_type?st_id=3", null, "If-None-Match", tag).getStatus());
+		// модификация таблицы через сервис изменяет версию таблицы
+		assertEquals(200, server.call("PUT", "data/table/rp.structure_type?st_id=3", "[{\"st_name\":\"Changed3\"}]").getStatus());
+		reply = server.call("GET", "data/table/rp.structure_type?st_id=3", null, "If-None-Match", tag);
+		assertEquals(200, reply.getStatus());
+		assertEquals("[{\"st_id\":3,\"st_name\":\"Changed3\"}]", reply.getText());
+	}
+
+}
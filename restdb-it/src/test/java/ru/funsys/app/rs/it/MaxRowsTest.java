@@ -0,0 +1,76 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import javax.sql.DataSource;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Тесты ограничения числа записей результата запроса SELECT (параметры {@code maxRows}, {@code maxRowsLimits}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class MaxRowsTest {
+
+	private static DataSource dataSource;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		dataSource = EmbeddedDatabase.create("maxrows");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+	}
+
+	private static InProcessServer server(boolean streaming) throws Exception {
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("maxRows", 3);
+		server.set("maxRowsLimits", "rp.users=20");
+		server.set("streaming", streaming);
+		return server;
+	}
+
+	private static int count(InProcessServer.Reply reply) {
+		return reply.getText().split("\\{").length - 1;
+	}
+
+	@Test
+	public void truncated() throws Exception {
+		InProcessServer.Reply reply = server(false).call("GET", "data/table/rp.structure_type?st_id=1&st_id=2&st_id=3&st_id=4&st_id=5", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("true", reply.getHeader("X-Truncated"));
+		assertEquals(3, count(reply));
+	}
+
+	@Test
+	public void truncatedStreaming() throws Exception {
+		// усеченный результат потоком не выдается, признак усечения передается так же
+		InProcessServer.Reply reply = server(true).call("GET", "data/table/rp.structure_type?st_id=1&st_id=2&st_id=3&st_id=4&st_id=5", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("true", reply.getHeader("X-Truncated"));
+		assertEquals(3, count(reply));
+	}
+
+	@Test
+	public void notTruncated() throws Exception {
+		InProcessServer server = server(false);
+		InProcessServer.Reply reply = server.call("GET", "data/table/rp.structure_type?st_id=1", null);
+		assertEquals(200, reply.getStatus());
+		assertNull(reply.getHeader("X-Truncated"));
+		// ограничение для таблицы заменяет общее ограничение
+		reply = server.call("GET", "data/table/rp.users?us_name=name0", null);
+		assertNull(reply.getHeader("X-Truncated"));
+		assertEquals(10, count(reply));
+	}
+
+	@Test
+	public void invalidColumn() throws Exception {
+		TableServiceTest.assertFailure(() -> server(false).call("GET", "data/table/rp.structure_type?bogus=1", null));
+	}
+
+}
@@ -0,0 +1,183 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Тесты постраничной выборки записей таблицы (параметры {@code $limit}, {@code $after}, {@code $offset}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class PagingTest {
+
+	private static final Pattern LINK = Pattern.compile("<http://localhost/restdb/rs/([^>]*)>; *rel=\"next\"");
+
+	private static final Pattern ID = Pattern.compile("\"st_id\":(\\d+)");
+
+	private static DataSource dataSource;
+
+	private static InProcessServer server;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		dataSource = EmbeddedDatabase.create("paging");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		// составной ключ из полей типов timestamp и uuid
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.execute("DROP TABLE IF EXISTS rp.events");
+			statement.execute("CREATE TABLE rp.events (ev_time TIMESTAMP NOT NULL, ev_id UUID NOT NULL, ev_no INTEGER NOT NULL, "
+					+ "CONSTRAINT events_pk PRIMARY KEY (ev_time, ev_id))");
+			for (int index = 0; index < 7; index++) {
+				statement.execute("INSERT INTO rp.events VALUES (TIMESTAMP '2020-01-0" + (1 + index / 3) + " 10:00:00.5', "
+						+ "'00000000-0000-0000-0000-00000000000" + (index % 3) + "', " + index + ")");
+			}
+		}
+		server = new InProcessServer(dataSource);
+		server.set("maxLimit", 5);
+	}
+
+	/**
+	 * Выбрать все страницы, следуя ссылкам на следующую страницу.
+	 *
+	 * @param path путь запроса первой страницы
+	 * @param ids значения первичного ключа выбранных записей
+	 * @return число страниц
+	 * @throws Exception ошибка выполнения запроса
+	 */
+	private static int pages(String path, ArrayList<Integer> ids) throws Exception {
+		return pages(server, path, ids);
+	}
+
+	/**
+	 * Выбрать все страницы, следуя ссылкам на следующую страницу.
+	 *
+	 * @param server сервис
+	 * @param path путь запроса первой страницы
+	 * @param ids значения первичного ключа выбранных записей
+	 * @return число страниц
+	 * @throws Exception ошибка выполнения запроса
+	 */
+	private static int pages(InProcessServer server, String path, ArrayList<Integer> ids) throws Exception {
+		int pages = 0;
+		while (path != null) {
+			InProcessServer.Reply reply = server.call("GET", path, null);
+			assertEquals(reply.toString(), 200, reply.getStatus());
+			pages++;
+			Matcher matcher = ID.matcher(reply.getText());
+			while (matcher.find()) {
+				ids.add(Integer.valueOf(matcher.group(1)));
+			}
+			String link = reply.getHeader("Link");
+			if (link == null) {
+				path = null;
+			} else {
+				matcher = LINK.matcher(link);
+				assertTrue(link, matcher.find());
+				path = matcher.group(1);
+			}
+		}
+		return pages;
+	}
+
+	private static ArrayList<Integer> range(int from, int to, int step) {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		for (int id = from; step > 0 ? id <= to : id >= to; id += step) {
+			ids.add(id);
+		}
+		return ids;
+	}
+
+	@Test
+	public void keyset() throws Exception {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		assertEquals(3, pages("data/table/rp.structure_type?$limit=4", ids));
+		assertEquals(range(1, 10, 1), ids);
+	}
+
+	@Test
+	public void exactPage() throws Exception {
+		// за последней полной страницей записей нет, ссылка на следующую страницу не выдается
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		assertEquals(2, pages("data/table/rp.structure_type?$limit=5", ids));
+		assertEquals(range(1, 10, 1), ids);
+	}
+
+	@Test
+	public void offset() throws Exception {
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		assertEquals(3, pages("data/table/rp.structure_type?$limit=4&$order=-st_id", ids));
+		assertEquals(range(10, 1, -1), ids);
+	}
+
+	@Test
+	public void maxRows() throws Exception {
+		// размер страницы уменьшается до maxRows - 1, запись-признак следующей страницы не отбрасывается
+		InProcessServer limited = new InProcessServer(dataSource);
+		limited.set("maxLimit", 5);
+		limited.set("maxRows", 4);
+		ArrayList<Integer> ids = new ArrayList<Integer>();
+		assertEquals(4, pages(limited, "data/table/rp.structure_type?$limit=5", ids));
+		assertEquals(range(1, 10, 1), ids);
+		ids.clear();
+		assertEquals(4, pages(limited, "data/table/rp.structure_type?$limit=5&$order=-st_id", ids));
+		assertEquals(range(10, 1, -1), ids);
+		// страница не усекается ограничением maxRows
+		assertNull(limited.call("GET", "data/table/rp.structure_type?$limit=5", null).getHeader("X-Truncated"));
+	}
+
+	@Test
+	public void typedKey() throws Exception {
+		ArrayList<Integer> numbers = new ArrayList<Integer>();
+		String path = "data/table/rp.events?$limit=2&$columns=ev_no";
+		int pages = 0;
+		while (path != null) {
+			InProcessServer.Reply reply = server.call("GET", path, null);
+			assertEquals(reply.toString(), 200, reply.getStatus());
+			pages++;
+			Matcher matcher = Pattern.compile("\"ev_no\":(\\d+)").matcher(reply.getText());
+			while (matcher.find()) {
+				numbers.add(Integer.valueOf(matcher.group(1)));
+			}
+			String link = reply.getHeader("Link");
+			path = link == null ? null : LINK.matcher(link).replaceFirst("$1");
+		}
+		assertEquals(4, pages);
+		// порядок по полям первичного ключа
+		assertEquals(Arrays.asList(0, 3, 6, 1, 4, 2, 5), numbers);
+	}
+
+	@Test
+	public void lastPage() throws Exception {
+		assertNull(server.call("GET", "data/table/rp.structure_type?$limit=4&$offset=8", null).getHeader("Link"));
+	}
+
+	@Test
+	public void invalid() throws Exception {
+		// размер страницы больше maxLimit
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?$limit=6", null));
+		// недопустимый ключ продолжения
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?$limit=4&$after=bogus", null));
+		// ключ продолжения несовместим с $offset
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?$limit=4&$offset=4&$after=WyI0Il0", null));
+		// значение ключа продолжения ["x"] не соответствует типу поля st_id
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?$limit=4&$after=WyJ4Il0", null));
+	}
+
+}
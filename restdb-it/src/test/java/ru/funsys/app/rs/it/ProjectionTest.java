@@ -0,0 +1,62 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+
+import javax.sql.DataSource;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Тесты выбора полей и порядка записей таблицы (параметры {@code $columns}, {@code $order}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class ProjectionTest {
+
+	private static InProcessServer server;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("projection");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		server = new InProcessServer(dataSource);
+	}
+
+	@Test
+	public void columns() throws Exception {
+		InProcessServer.Reply reply = server.call("GET", "data/table/rp.users?us_name=name0&us_last=last3&$columns=us_email", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("[{\"us_email\":\"user3@example.org\"}]", reply.getText());
+		// имена полей без учета регистра
+		reply = server.call("GET", "data/table/rp.users?us_name=name0&us_last=last3&$columns=US_LAST,us_email", null);
+		assertEquals("[{\"us_last\":\"last3\",\"us_email\":\"user3@example.org\"}]", reply.getText());
+	}
+
+	@Test
+	public void order() throws Exception {
+		InProcessServer.Reply reply = server.call("GET",
+				"data/table/rp.users?us_name=name0&us_last=last1&us_last=last2&us_last=last3&$columns=us_last&$order=-us_last", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("[{\"us_last\":\"last3\"},{\"us_last\":\"last2\"},{\"us_last\":\"last1\"}]", reply.getText());
+	}
+
+	@Test
+	public void keysetColumns() throws Exception {
+		// при выборке по ключу продолжения поля первичного ключа добавляются к выбираемым полям
+		InProcessServer.Reply reply = server.call("GET", "data/table/rp.users?$limit=1&$columns=us_email", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("[{\"us_email\":\"user0@example.org\",\"us_last\":\"last0\",\"us_name\":\"name0\"}]", reply.getText());
+	}
+
+	@Test
+	public void invalidColumn() throws Exception {
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.users?us_name=name0&$columns=us_email,bogus", null));
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.users?us_name=name0&$order=-bogus", null));
+	}
+
+}
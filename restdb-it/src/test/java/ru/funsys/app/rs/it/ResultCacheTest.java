@@ -0,0 +1,108 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Тесты кэша результатов запросов (параметр {@code cacheTables}) и его очистки при модификации таблицы
+ * методами сервиса.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class ResultCacheTest {
+
+	private static DataSource dataSource;
+
+	private static InProcessServer server;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		dataSource = EmbeddedDatabase.create("cache");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		server = new InProcessServer(dataSource);
+		server.set("cacheTables", "rp.structure_type");
+	}
+
+	/**
+	 * Модифицировать таблицу в обход сервиса.
+	 *
+	 * @param sql запрос
+	 * @throws SQLException ошибка выполнения запроса
+	 */
+	private static void direct(String sql) throws SQLException {
+		try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+			statement.executeUpdate(sql);
+		}
+	}
+
+	/**
+	 * Получить число результатов в кэше таблицы {@code rp.structure_type} из статистики кэша.
+	 *
+	 * @param statistics статистика кэша в формате JSON
+	 * @return число результатов
+	 */
+	private static int size(String statistics) {
+		Matcher matcher = Pattern.compile("\"name\":\"rp.structure_type\",\"size\":(\\d+)").matcher(statistics);
+		return matcher.find() ? Integer.parseInt(matcher.group(1)) : 0;
+	}
+
+	private static String get(String path) throws Exception {
+		InProcessServer.Reply reply = server.call("GET", path, null);
+		assertEquals(reply.toString(), 200, reply.getStatus());
+		return reply.getText();
+	}
+
+	@Test
+	public void invalidatedByWrite() throws Exception {
+		assertEquals("[{\"st_id\":1,\"st_name\":\"Type1\"}]", get("data/table/rp.structure_type?st_id=1"));
+		// модификация в обход сервиса не видна до истечения времени хранения результата
+		direct("UPDATE rp.structure_type SET st_name = 'Direct1' WHERE st_id = 1");
+		assertEquals("[{\"st_id\":1,\"st_name\":\"Type1\"}]", get("data/table/rp.structure_type?st_id=1"));
+		// модификация методом сервиса очищает кэш таблицы
+		assertEquals(200, server.call("PUT", "data/table/rp.structure_type?st_id=1", "[{\"st_name\":\"Service1\"}]").getStatus());
+		assertEquals("[{\"st_id\":1,\"st_name\":\"Service1\"}]", get("data/table/rp.structure_type?st_id=1"));
+	}
+
+	@Test
+	public void invalidatedByBatch() throws Exception {
+		assertEquals("[{\"st_id\":2,\"st_name\":\"Type2\"}]", get("data/table/rp.structure_type?st_id=2"));
+		assertEquals(200, server.call("POST", "data/batch",
+				"[{\"operation\":\"put\",\"table\":\"rp.structure_type\",\"records\":[{\"st_id\":2,\"st_name\":\"Batch2\"}]}]").getStatus());
+		assertEquals("[{\"st_id\":2,\"st_name\":\"Batch2\"}]", get("data/table/rp.structure_type?st_id=2"));
+	}
+
+	@Test
+	public void notCached() throws Exception {
+		// таблица не определена параметром cacheTables
+		assertTrue(get("data/table/rp.users?us_name=name0&us_last=last1").contains("user1@example.org"));
+		direct("UPDATE rp.users SET us_email = 'direct1@example.org' WHERE us_name = 'name0' AND us_last = 'last1'");
+		assertTrue(get("data/table/rp.users?us_name=name0&us_last=last1").contains("direct1@example.org"));
+	}
+
+	@Test
+	public void failedQuery() throws Exception {
+		// ошибка выполнения запроса не сохраняется в кэше, повторный запрос выполняется заново
+		assertEquals("[{\"st_id\":3,\"st_name\":\"Type3\"}]", get("data/table/rp.structure_type?st_id=3"));
+		String before = get("data/cache");
+		assertTrue(before, size(before) > 0);
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?st_id=bogus", null));
+		TableServiceTest.assertFailure(() -> server.call("GET", "data/table/rp.structure_type?st_id=bogus", null));
+		assertEquals(size(before), size(get("data/cache")));
+	}
+
+}
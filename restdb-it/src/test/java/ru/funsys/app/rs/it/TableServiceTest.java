@@ -0,0 +1,188 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.Callable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.sql.DataSource;
+
+import org.glassfish.jersey.server.ContainerException;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import ru.funsys.avalanche.rs.RestException;
+
+/**
+ * Интеграционные тесты операций с таблицами сервиса, выполняемого в процессе теста со встроенной БД.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class TableServiceTest {
+
+	private static InProcessServer server;
+
+	@BeforeClass
+	public static void setUp() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("service");
+		EmbeddedDatabase.seed(dataSource, 100, 100);
+		server = new InProcessServer(dataSource);
+	}
+
+	/**
+	 * Проверить, что запрос завершается ошибкой сервиса {@code RestException}.
+	 *
+	 * @param call выполнение запроса
+	 */
+	static void assertFailure(Callable<InProcessServer.Reply> call) {
+		try {
+			fail(call.call().toString());
+		} catch (ContainerException e) {
+			assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof RestException);
+		} catch (Exception e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	/**
+	 * Получить значение поля {@code result} ответа в формате JSON.
+	 *
+	 * @param reply ответ
+	 * @return значение поля
+	 */
+	static int getResult(InProcessServer.Reply reply) {
+		Matcher matcher = Pattern.compile("\"result\":(\\d+)").matcher(reply.getText());
+		assertTrue(reply.toString(), matcher.find());
+		return Integer.parseInt(matcher.group(1));
+	}
+
+	@Test
+	public void select() throws Exception {
+		InProcessServer.Reply reply = server.call("GET", "data/table/rp.users?us_name=name1&us_last=last2", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("[{\"us_name\":\"name1\",\"us_last\":\"last2\",\"us_email\":\"user12@example.org\"}]", reply.getText());
+	}
+
+	@Test
+	public void insertAndDelete() throws Exception {
+		InProcessServer.Reply reply = server.call("POST", "data/table/rp.structure_type",
+				"[{\"st_id\":1001,\"st_name\":\"Test1001\"},{\"st_id\":1002,\"st_name\":\"Test1002\"}]");
+		assertEquals(200, reply.getStatus());
+		assertTrue(reply.getText(), reply.getText().contains("\"result\":2"));
+		reply = server.call("GET", "data/table/rp.structure_type?st_id=1002", null);
+		assertEquals("[{\"st_id\":1002,\"st_name\":\"Test1002\"}]", reply.getText());
+		reply = server.call("DELETE", "data/table/rp.structure_type?st_id=1001", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=1001", null).getText());
+	}
+
+	@Test
+	public void update() throws Exception {
+		InProcessServer.Reply reply = server.call("PUT", "data/table/rp.users?us_name=name2&us_last=last3",
+				"[{\"us_email\":\"changed@example.org\"}]");
+		assertEquals(200, reply.getStatus());
+		reply = server.call("GET", "data/table/rp.users?us_name=name2&us_last=last3", null);
+		assertTrue(reply.getText(), reply.getText().contains("changed@example.org"));
+	}
+
+	@Test
+	public void bulkUpdate() throws Exception {
+		InProcessServer.Reply reply = server.call("PUT", "data/table/rp.structure_type",
+				"[{\"st_id\":10,\"st_name\":\"Bulk10\"},{\"st_id\":5000,\"st_name\":\"Bulk5000\"}]");
+		assertEquals(200, reply.getStatus());
+		assertEquals(1, getResult(reply));
+		assertTrue(reply.getText(), reply.getText().contains("\"notFound\":[{\"st_id\":5000}]"));
+		assertEquals("[{\"st_id\":10,\"st_name\":\"Bulk10\"}]", server.call("GET", "data/table/rp.structure_type?st_id=10", null).getText());
+	}
+
+	@Test
+	public void bulkUpdateInvalid() throws Exception {
+		// запись без значения первичного ключа
+		assertFailure(() -> server.call("PUT", "data/table/rp.structure_type", "[{\"st_name\":\"Bulk\"}]"));
+		// поля второй записи не совпадают с полями первой, модификация первой записи откатывается
+		assertFailure(() -> server.call("PUT", "data/table/rp.structure_type", "[{\"st_id\":11,\"st_name\":\"Bulk11\"},{\"st_id\":12}]"));
+		assertEquals("[{\"st_id\":11,\"st_name\":\"Type11\"}]", server.call("GET", "data/table/rp.structure_type?st_id=11", null).getText());
+	}
+
+	@Test
+	public void bulkDelete() throws Exception {
+		InProcessServer.Reply reply = server.call("DELETE", "data/table/rp.structure_type?st_id=20&st_id=21&st_id=5001", null);
+		assertEquals(200, reply.getStatus());
+		assertEquals(2, getResult(reply));
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=20&st_id=21", null).getText());
+		// составной ключ в записях тела запроса
+		reply = server.call("DELETE", "data/table/rp.users",
+				"[{\"us_name\":\"name3\",\"us_last\":\"last4\"},{\"us_name\":\"name3\",\"us_last\":\"last5\"}]");
+		assertEquals(2, getResult(reply));
+		assertEquals("[]", server.call("GET", "data/table/rp.users?us_name=name3&us_last=last4", null).getText());
+	}
+
+	@Test
+	public void bulkDeleteInvalid() throws Exception {
+		// число значений полей составного ключа не совпадает
+		assertFailure(() -> server.call("DELETE", "data/table/rp.users?us_name=name4&us_name=name4&us_last=last1", null));
+		assertTrue(server.call("GET", "data/table/rp.users?us_name=name4&us_last=last1", null).getText().contains("user41"));
+		// поле не входит в первичный ключ
+		assertFailure(() -> server.call("DELETE", "data/table/rp.users", "[{\"us_email\":\"user42@example.org\"}]"));
+	}
+
+	@Test
+	public void upsert() throws Exception {
+		// существующая запись модифицируется, отсутствующая - вставляется
+		InProcessServer.Reply reply = server.call("POST", "data/table/rp.structure_type?$mode=upsert",
+				"[{\"st_id\":30,\"st_name\":\"Upsert30\"},{\"st_id\":3001,\"st_name\":\"Upsert3001\"}]");
+		assertEquals(200, reply.getStatus());
+		assertEquals(2, getResult(reply));
+		assertEquals("[{\"st_id\":30,\"st_name\":\"Upsert30\"},{\"st_id\":3001,\"st_name\":\"Upsert3001\"}]",
+				server.call("GET", "data/table/rp.structure_type?st_id=30&st_id=3001", null).getText());
+		// повторное выполнение не нарушает первичный ключ
+		reply = server.call("POST", "data/table/rp.structure_type?$mode=upsert", "[{\"st_id\":3001,\"st_name\":\"Upsert3001a\"}]");
+		assertEquals(1, getResult(reply));
+		assertEquals("[{\"st_id\":3001,\"st_name\":\"Upsert3001a\"}]", server.call("GET", "data/table/rp.structure_type?st_id=3001", null).getText());
+	}
+
+	@Test
+	public void upsertInvalid() throws Exception {
+		// записи без значения первичного ключа
+		assertFailure(() -> server.call("POST", "data/table/rp.structure_type?$mode=upsert", "[{\"st_name\":\"Upsert\"}]"));
+		// недопустимый режим
+		assertFailure(() -> server.call("POST", "data/table/rp.structure_type?$mode=merge", "[{\"st_id\":3002,\"st_name\":\"Upsert3002\"}]"));
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=3002", null).getText());
+	}
+
+	@Test
+	public void loadCsv() throws Exception {
+		InProcessServer.Reply reply = server.call("POST", "data/table/rp.structure_type",
+				"\uFEFF\r\nst_id,st_name\r2001,Csv2001\r2002,\"Csv,2002\"\r", "Content-Type", "text/csv; charset=UTF-8");
+		assertEquals(200, reply.getStatus());
+		assertTrue(reply.getText(), reply.getText().contains("\"result\":2"));
+		assertEquals("[{\"st_id\":2001,\"st_name\":\"Csv2001\"}]", server.call("GET", "data/table/rp.structure_type?st_id=2001", null).getText());
+		assertEquals("[{\"st_id\":2002,\"st_name\":\"Csv,2002\"}]", server.call("GET", "data/table/rp.structure_type?st_id=2002", null).getText());
+	}
+
+	@Test
+	public void loadCsvUnknownColumn() throws Exception {
+		assertFailure(() -> server.call("POST", "data/table/rp.structure_type", "st_id,bogus\n2003,x\n", "Content-Type", "text/csv"));
+		assertEquals("[]", server.call("GET", "data/table/rp.structure_type?st_id=2003", null).getText());
+	}
+
+	@Test
+	public void load() throws Exception {
+		LoadDriver.Result result = new LoadDriver(2, 100, 300).run("read", (thread, iteration) -> {
+			if (server.call("GET", "data/table/rp.structure_type?st_id=" + (1 + iteration % 100), null).getStatus() != 200) {
+				throw new IllegalStateException();
+			}
+		});
+		assertEquals(0, result.getErrors());
+		assertTrue(result.getOperations() > 0);
+		assertTrue(result.getPercentile(50) <= result.getPercentile(99));
+	}
+
+}
@@ -0,0 +1,68 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.it;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.lang.reflect.Field;
+
+import javax.sql.DataSource;
+
+import org.junit.Test;
+
+import ru.funsys.app.rs.TableService;
+
+/**
+ * Тесты запуска и остановки сервиса вместе с приложением.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class WarmupTest {
+
+	private static Object getWarmup(InProcessServer server) throws Exception {
+		Field field = TableService.class.getDeclaredField("warmup");
+		field.setAccessible(true);
+		return field.get(server.getService());
+	}
+
+	@Test
+	public void startedWithApplication() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("warmup");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("warmupTables", "rp.users;rp.structure_type");
+		server.set("warmupThreads", 2);
+		assertNull(getWarmup(server));
+		// прогрев начинается при запуске приложения, до первого запроса
+		server.start();
+		assertNotNull(getWarmup(server));
+		InProcessServer.Reply reply = server.call("GET", "data/ready", null);
+		for (int attempt = 0; reply.getStatus() == 503 && attempt < 100; attempt++) {
+			Thread.sleep(50);
+			reply = server.call("GET", "data/ready", null);
+		}
+		assertEquals(200, reply.getStatus());
+		assertEquals(2, TableServiceTest.getResult(reply));
+		server.stop();
+	}
+
+	@Test
+	public void executorStoppedWithApplication() throws Exception {
+		DataSource dataSource = EmbeddedDatabase.create("stop");
+		EmbeddedDatabase.seed(dataSource, 10, 10);
+		InProcessServer server = new InProcessServer(dataSource);
+		server.set("asyncThreads", 2);
+		assertEquals(200, server.call("GET", "data/table/rp.structure_type?st_id=1", null).getStatus());
+		Field field = TableService.class.getDeclaredField("executor");
+		field.setAccessible(true);
+		assertNotNull(field.get(server.getService()));
+		// остановка приложения останавливает исполнитель
+		server.stop();
+		assertNull(field.get(server.getService()));
+	}
+
+}
@@ -0,0 +1,246 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.UriInfo;
+
+import ru.funsys.app.rs.BeanRequest;
+import ru.funsys.app.rs.TableService;
+import ru.funsys.avalanche.sql.Adapter;
+import ru.funsys.avalanche.sql.ExecuteSet;
+
+/**
+ * Заменители окружения сервиса для тестов производительности: адаптер БД, возвращающий синтетические
+ * результаты запросов без обращения к БД, и параметры HTTP запроса, формируемые без контейнера JAX-RS.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public final class Fakes {
+
+	private static final RowSetFactory FACTORY;
+
+	static {
+		try {
+			FACTORY = RowSetProvider.newFactory();
+		} catch (SQLException e) {
+			throw new ExceptionInInitializerError(e);
+		}
+	}
+
+	private Fakes() {
+	}
+
+	/**
+	 * Создать сервис с адаптером БД {@link FakeAdapter}.
+	 *
+	 * @param sqlCacheSize размер кэша текстов SQL запросов, 0 - кэш отключен
+	 * @return сервис
+	 * @throws Exception ошибка создания
+	 */
+	public static TableService service(int sqlCacheSize) throws Exception {
+		TableService service = new TableService();
+		set(service, "database", new FakeAdapter());
+		set(service, "sqlCacheSize", sqlCacheSize);
+		return service;
+	}
+
+	/**
+	 * Создать параметры HTTP запроса.
+	 *
+	 * @param object имя таблицы или метода генератора SQL запросов
+	 * @param query строка параметров запроса {@code name=value&...} или {@code null}
+	 * @param accept тип данных ответа
+	 * @return параметры запроса
+	 * @throws Exception ошибка создания
+	 */
+	public static BeanRequest bean(String object, String query, MediaType accept) throws Exception {
+		BeanRequest bean = new BeanRequest();
+		set(bean, "object", object);
+		set(bean, "lang", "en");
+		List<MediaType> acceptable = Collections.singletonList(accept);
+		set(bean, "headers", proxy(HttpHeaders.class, (name, args) -> {
+			if ("getAcceptableMediaTypes".equals(name)) return acceptable;
+			if ("getMediaType".equals(name)) return MediaType.APPLICATION_JSON_TYPE;
+			return null;
+		}));
+		set(bean, "configuration", proxy(Configuration.class, (name, args) -> null));
+		set(bean, "request", proxy(Request.class, (name, args) -> null));
+		MultivaluedMap<String, String> parameters = new MultivaluedHashMap<String, String>();
+		if (query != null) {
+			for (String item : query.split("&")) {
+				String[] pair = item.split("=", 2);
+				parameters.add(pair[0], pair[1]);
+			}
+		}
+		URI path = URI.create("http://localhost/restdb/rs/data/table/" + object);
+		bean.setQueryParameters(proxy(UriInfo.class, (name, args) -> {
+			if ("getQueryParameters".equals(name)) return parameters;
+			if ("getAbsolutePath".equals(name)) return path;
+			return null;
+		}));
+		return bean;
+	}
+
+	/**
+	 * Создать синтетический результат запроса: поля {@code c0 ... cN}, четные поля - целые числа,
+	 * нечетные - строки.
+	 *
+	 * @param columns число полей
+	 * @param rows число записей
+	 * @return результат запроса, курсор установлен перед первой записью
+	 * @throws SQLException ошибка создания
+	 */
+	public static CachedRowSet synthetic(int columns, int rows) throws SQLException {
+		String[] names = new String[columns];
+		int[] types = new int[columns];
+		for (int column = 0; column < columns; column++) {
+			names[column] = "c" + column;
+			types[column] = column % 2 == 0 ? Types.INTEGER : Types.VARCHAR;
+		}
+		ArrayList<Object[]> list = new ArrayList<Object[]>(rows);
+		for (int row = 0; row < rows; row++) {
+			Object[] values = new Object[columns];
+			for (int column = 0; column < columns; column++) {
+				values[column] = column % 2 == 0 ? (Object) (row * columns + column) : "value " + row + '.' + column;
+			}
+			list.add(values);
+		}
+		return rowSet(names, types, list);
+	}
+
+	/**
+	 * Создать результат запроса из записей в памяти.
+	 *
+	 * @param names имена полей
+	 * @param types типы полей {@link Types}
+	 * @param rows записи
+	 * @return результат запроса, курсор установлен перед первой записью
+	 * @throws SQLException ошибка создания
+	 */
+	public static CachedRowSet rowSet(String[] names, int[] types, List<Object[]> rows) throws SQLException {
+		RowSetMetaDataImpl metadata = new RowSetMetaDataImpl();
+		metadata.setColumnCount(names.length);
+		for (int column = 0; column < names.length; column++) {
+			metadata.setColumnName(column + 1, names[column]);
+			metadata.setColumnLabel(column + 1, names[column]);
+			metadata.setColumnType(column + 1, types[column]);
+		}
+		CachedRowSet rowSet = FACTORY.createCachedRowSet();
+		rowSet.setMetaData(metadata);
+		rowSet.moveToInsertRow();
+		for (Object[] row : rows) {
+			for (int column = 0; column < names.length; column++) {
+				rowSet.updateObject(column + 1, row[column]);
+			}
+			rowSet.insertRow();
+		}
+		rowSet.moveToCurrentRow();
+		rowSet.beforeFirst();
+		return rowSet;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> T proxy(Class<T> type, Handler handler) {
+		return (T) Proxy.newProxyInstance(Fakes.class.getClassLoader(), new Class<?>[] {type},
+				(instance, method, args) -> handler.invoke(method.getName(), args));
+	}
+
+	private static void set(Object target, String name, Object value) throws Exception {
+		for (Class<?> type = target.getClass(); type != null; type = type.getSuperclass()) {
+			try {
+				Field field = type.getDeclaredField(name);
+				field.setAccessible(true);
+				field.set(target, value);
+				return;
+			} catch (NoSuchFieldException e) {
+				// поле определено в суперклассе
+			}
+		}
+		throw new NoSuchFieldException(name);
+	}
+
+	private interface Handler {
+
+		Object invoke(String method, Object[] args);
+
+	}
+
+	/**
+	 * Адаптер БД без обращения к БД. Таблицы имеют поля {@code st_id} (первичный ключ) и {@code st_name},
+	 * запрос SELECT возвращает одну запись, запросы INSERT, UPDATE и DELETE - число параметров запроса.
+	 */
+	public static class FakeAdapter extends Adapter {
+
+		private static final String[] NAMES = {"st_id", "st_name"};
+
+		private static final int[] TYPES = {Types.INTEGER, Types.VARCHAR};
+
+		/**
+		 * Результат запроса SELECT, каждому запросу выдается копия с собственным курсором
+		 */
+		private final CachedRowSet result;
+
+		public FakeAdapter() throws SQLException {
+			super();
+			result = rowSet(NAMES, TYPES, Collections.singletonList(new Object[] {1, "name"}));
+		}
+
+		@Override
+		public ResultSet select(String sql, ArrayList<Object> parameters) throws Exception {
+			return result.createShared();
+		}
+
+		@Override
+		public ExecuteSet execute(String sql, ArrayList<Object> parameters) throws Exception {
+			int records = parameters.size();
+			return new ExecuteSet() {
+
+				@Override
+				public int getRecords() {
+					return records;
+				}
+
+			};
+		}
+
+		@Override
+		public ResultSet metadata(String name, Object... args) throws Exception {
+			// поля 4 и 5 - имя и тип поля (getColumns), поле 4 - имя поля первичного ключа (getPrimaryKeys)
+			String[] names = {"table_cat", "table_schem", "table_name", "column_name", "data_type"};
+			int[] types = {Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.INTEGER};
+			ArrayList<Object[]> rows = new ArrayList<Object[]>();
+			if ("getColumns".equals(name)) {
+				for (int column = 0; column < NAMES.length; column++) {
+					rows.add(new Object[] {null, args[1], args[2], NAMES[column], TYPES[column]});
+				}
+			} else if ("getPrimaryKeys".equals(name)) {
+				rows.add(new Object[] {null, args[1], args[2], NAMES[0], 1});
+			}
+			return rowSet(names, types, rows);
+		}
+
+	}
+
+}
@@ -0,0 +1,74 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.benchmark;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.rowset.CachedRowSet;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.funsys.app.rs.RowTable;
+
+/**
+ * Время чтения синтетического результата запроса ({@code ResultSet}) в {@link RowTable} и преобразования
+ * записей в список объектов {@link RowTable#toArrayList()} для различного числа полей и записей.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RowTableBenchmark {
+
+	@Param({"4", "16", "64"})
+	public int columns;
+
+	@Param({"10", "1000", "10000"})
+	public int rows;
+
+	private CachedRowSet result;
+
+	private RowTable table;
+
+	@Setup
+	public void setup() throws Exception {
+		result = Fakes.synthetic(columns, rows);
+		table = new RowTable(result);
+	}
+
+	@Benchmark
+	public RowTable read() throws Exception {
+		result.beforeFirst();
+		return new RowTable(result);
+	}
+
+	@Benchmark
+	public ArrayList<HashMap<String, Object>> readToArrayList() throws Exception {
+		result.beforeFirst();
+		return new RowTable(result).toArrayList();
+	}
+
+	@Benchmark
+	public ArrayList<HashMap<String, Object>> toArrayList() {
+		return table.toArrayList();
+	}
+
+}
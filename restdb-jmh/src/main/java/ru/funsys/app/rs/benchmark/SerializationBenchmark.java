@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.Marshaller;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import ru.funsys.app.rs.BeanResponse;
+import ru.funsys.app.rs.RowTable;
+import ru.funsys.app.rs.RowWriter;
+
+/**
+ * Время записи результатов в тело ответа в форматах JSON и XML: результат запроса SELECT в виде массива
+ * объектов и в табличном формате ({@link RowWriter}), список объектов {@link RowTable#toArrayList()},
+ * записываемый Jackson, и результат запросов INSERT, UPDATE, DELETE {@link BeanResponse}.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	@Param({"application/json", "application/xml"})
+	public String type;
+
+	@Param({"10", "1000"})
+	public int rows;
+
+	@Param({"16"})
+	public int columns;
+
+	private MediaType mediaType;
+
+	private RowTable table;
+
+	private RowTable columnar;
+
+	private BeanResponse response;
+
+	private Marshaller marshaller;
+
+	private ByteArrayOutputStream out;
+
+	@Setup
+	public void setup() throws Exception {
+		mediaType = MediaType.valueOf(type);
+		table = new RowTable(Fakes.synthetic(columns, rows));
+		columnar = new RowTable(table.getColumns(), table.getTypes(), table.getRows());
+		columnar.setColumnar(true);
+		response = new BeanResponse("INSERT", rows);
+		response.setTimer(12);
+		marshaller = JAXBContext.newInstance(BeanResponse.class).createMarshaller();
+		out = new ByteArrayOutputStream(1 << 20);
+	}
+
+	@Benchmark
+	public int rows() throws Exception {
+		out.reset();
+		table.write(RowWriter.getInstance(mediaType, out, null));
+		return out.size();
+	}
+
+	@Benchmark
+	public int columnar() throws Exception {
+		out.reset();
+		columnar.write(RowWriter.getInstance(mediaType, out, null));
+		return out.size();
+	}
+
+	/**
+	 * Запись списка объектов Jackson, только JSON (прежний способ выдачи результата)
+	 */
+	@Benchmark
+	public int arrayList() throws Exception {
+		out.reset();
+		MAPPER.writeValue(out, table.toArrayList());
+		return out.size();
+	}
+
+	@Benchmark
+	public int beanResponse() throws Exception {
+		out.reset();
+		if (MediaType.APPLICATION_XML_TYPE.equals(mediaType)) {
+			marshaller.marshal(response, out);
+		} else {
+			MAPPER.writeValue(out, response);
+		}
+		return out.size();
+	}
+
+}
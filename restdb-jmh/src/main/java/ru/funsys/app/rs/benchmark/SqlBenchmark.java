@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import ru.funsys.app.rs.BeanRequest;
+import ru.funsys.app.rs.TableService;
+
+/**
+ * Время обработки запроса методами сервиса get, post, put и delete от разбора параметров запроса
+ * до получения ответа: формирование текста SQL запроса, связывание параметров и формирование ответа.
+ * Адаптер БД не обращается к БД (см. {@link Fakes.FakeAdapter}), поэтому результат не включает время
+ * выполнения SQL запроса.
+ *
+ * <p>
+ * Параметр {@code sqlCacheSize} сравнивает формирование SQL запроса при каждом обращении (0) и получение
+ * запроса из кэша текстов SQL запросов.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SqlBenchmark {
+
+	private static final byte[] RECORD = "{\"st_id\":42,\"st_name\":\"Test42\"}".getBytes(StandardCharsets.UTF_8);
+
+	private static final byte[] RECORDS;
+
+	static {
+		StringBuilder builder = new StringBuilder("[");
+		for (int index = 0; index < 100; index++) {
+			if (index > 0) builder.append(',');
+			builder.append("{\"st_id\":").append(index).append(",\"st_name\":\"Test").append(index).append("\"}");
+		}
+		RECORDS = builder.append(']').toString().getBytes(StandardCharsets.UTF_8);
+	}
+
+	@Param({"0", "1000"})
+	public int sqlCacheSize;
+
+	private TableService service;
+
+	private BeanRequest select;
+
+	private BeanRequest filter;
+
+	private BeanRequest insert;
+
+	private BeanRequest update;
+
+	private BeanRequest delete;
+
+	@Setup
+	public void setup() throws Exception {
+		service = Fakes.service(sqlCacheSize);
+		select = Fakes.bean("rp.structure_type", "st_id=42", MediaType.APPLICATION_JSON_TYPE);
+		filter = Fakes.bean("rp.structure_type", "st_id=42&st_name=Test42&$columns=st_id,st_name", MediaType.APPLICATION_JSON_TYPE);
+		insert = Fakes.bean("rp.structure_type", null, MediaType.APPLICATION_JSON_TYPE);
+		update = Fakes.bean("rp.structure_type", "st_id=42", MediaType.APPLICATION_JSON_TYPE);
+		delete = Fakes.bean("rp.structure_type", "st_id=42", MediaType.APPLICATION_JSON_TYPE);
+	}
+
+	@Benchmark
+	public Response get() throws Exception {
+		return service.get(select);
+	}
+
+	@Benchmark
+	public Response getColumns() throws Exception {
+		return service.get(filter);
+	}
+
+	@Benchmark
+	public Response post() throws Exception {
+		return service.post(insert, new ByteArrayInputStream(RECORD));
+	}
+
+	@Benchmark
+	public Response postMultiple() throws Exception {
+		return service.post(insert, new ByteArrayInputStream(RECORDS));
+	}
+
+	@Benchmark
+	public Response put() throws Exception {
+		return service.put(update, new ByteArrayInputStream(RECORD));
+	}
+
+	@Benchmark
+	public Response delete() throws Exception {
+		return service.delete(delete, null);
+	}
+
+}
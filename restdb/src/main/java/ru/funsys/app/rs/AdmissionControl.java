@@ -0,0 +1,103 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Ограничение числа одновременно выполняемых запросов к сервису по группам методов сервиса (table, query,
+ * info) и по таблицам (классам генераторов SQL запросов). Запрос, превышающий ограничение, не ставится
+ * в очередь, а сразу отклоняется, что не позволяет одной нагруженной таблице занять все соединения пула.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class AdmissionControl {
+
+	/**
+	 * Максимальное число ограничиваемых таблиц, ограничения для таблиц сверх этого числа не применяются.
+	 * Защищает от неограниченного роста числа семафоров при обращении к несуществующим таблицам.
+	 */
+	private static final int MAX_TABLES = 10000;
+
+	/**
+	 * Ограничение для таблицы по умолчанию, 0 - не ограничено
+	 */
+	private final int tableLimit;
+
+	/**
+	 * Ограничения для отдельных таблиц по имени таблицы в нижнем регистре
+	 */
+	private final HashMap<String, Integer> tableLimits;
+
+	private final ConcurrentHashMap<String, Semaphore> tables = new ConcurrentHashMap<String, Semaphore>();
+
+	private final HashMap<String, Semaphore> endpoints = new HashMap<String, Semaphore>();
+
+	/**
+	 * Создать ограничения.
+	 *
+	 * @param tableLimit ограничение для таблицы по умолчанию, 0 - не ограничено
+	 * @param tableLimits ограничения для отдельных таблиц
+	 * @param endpointLimits ограничения для групп методов сервиса
+	 */
+	AdmissionControl(int tableLimit, Map<String, Integer> tableLimits, Map<String, Integer> endpointLimits) {
+		super();
+		this.tableLimit = tableLimit;
+		this.tableLimits = new HashMap<String, Integer>();
+		for (Map.Entry<String, Integer> entry : tableLimits.entrySet()) {
+			this.tableLimits.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+		}
+		for (Map.Entry<String, Integer> entry : endpointLimits.entrySet()) {
+			if (entry.getValue() > 0) endpoints.put(entry.getKey(), new Semaphore(entry.getValue()));
+		}
+	}
+
+	/**
+	 * Получить разрешение на выполнение запроса.
+	 *
+	 * @param endpoint группа методов сервиса
+	 * @param table имя таблицы или класса генератора, {@code null} - не ограничивается
+	 * @return {@code null}, если разрешение получено, иначе - имя исчерпанного ограничения
+	 */
+	String acquire(String endpoint, String table) {
+		Semaphore group = endpoints.get(endpoint);
+		if (group != null && !group.tryAcquire()) return endpoint;
+		Semaphore semaphore = getTable(table);
+		if (semaphore != null && !semaphore.tryAcquire()) {
+			if (group != null) group.release();
+			return table;
+		}
+		return null;
+	}
+
+	/**
+	 * Освободить разрешение, полученное методом {@link #acquire(String, String)}.
+	 *
+	 * @param endpoint группа методов сервиса
+	 * @param table имя таблицы или класса генератора
+	 */
+	void release(String endpoint, String table) {
+		Semaphore semaphore = getTable(table);
+		if (semaphore != null) semaphore.release();
+		Semaphore group = endpoints.get(endpoint);
+		if (group != null) group.release();
+	}
+
+	private Semaphore getTable(String table) {
+		if (table == null) return null;
+		String name = table.toLowerCase(Locale.ROOT);
+		Semaphore semaphore = tables.get(name);
+		if (semaphore != null) return semaphore;
+		Integer limit = tableLimits.get(name);
+		if (limit == null) limit = tableLimit;
+		if (limit < 1 || tables.size() >= MAX_TABLES && limit == tableLimit) return null;
+		return tables.computeIfAbsent(name, key -> new Semaphore(tableLimits.getOrDefault(key, tableLimit)));
+	}
+
+}
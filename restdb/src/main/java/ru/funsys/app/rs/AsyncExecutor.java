@@ -0,0 +1,156 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.core.Response;
+
+/**
+ * Выполнение методов сервиса вне потоков контейнера сервлетов. Если среда выполнения поддерживает
+ * виртуальные потоки (Java 21 и выше), каждый метод выполняется в отдельном виртуальном потоке, число
+ * одновременно выполняемых методов ограничивается семафором. Иначе методы выполняются пулом потоков
+ * фиксированного размера.
+ *
+ * <p>
+ * Число принятых, но еще не завершенных методов (выполняемых и ожидающих выполнения) ограничено, метод
+ * сверх этого числа не принимается к выполнению. Исполнитель останавливается при остановке приложения
+ * (см. {@code TableService.stop()}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class AsyncExecutor {
+
+	/**
+	 * Выполняемый метод сервиса
+	 */
+	interface Work {
+
+		Response run() throws Exception;
+
+	}
+
+	private final ExecutorService executor;
+
+	/**
+	 * Ограничение числа одновременно выполняемых методов для виртуальных потоков, {@code null} - пул потоков
+	 */
+	private final Semaphore permits;
+
+	/**
+	 * Ограничение числа принятых, но еще не завершенных методов
+	 */
+	private final Semaphore capacity;
+
+	/**
+	 * Создать исполнитель.
+	 *
+	 * @param threads максимальное число одновременно выполняемых методов
+	 * @param queue максимальное число методов, ожидающих выполнения
+	 */
+	AsyncExecutor(int threads, int queue) {
+		super();
+		capacity = new Semaphore(threads + Math.max(0, queue));
+		ExecutorService virtual = newVirtualExecutor();
+		if (virtual != null) {
+			executor = virtual;
+			permits = new Semaphore(threads);
+		} else {
+			AtomicInteger number = new AtomicInteger();
+			executor = Executors.newFixedThreadPool(threads, runnable -> {
+				Thread thread = new Thread(runnable, "restdb-async-" + number.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			});
+			permits = null;
+		}
+	}
+
+	/**
+	 * Создать исполнитель с виртуальными потоками.
+	 *
+	 * @return исполнитель или {@code null}, если виртуальные потоки не поддерживаются
+	 */
+	private static ExecutorService newVirtualExecutor() {
+		try {
+			Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) method.invoke(null);
+		} catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Выполнить метод сервиса и возобновить обработку HTTP запроса с результатом выполнения.
+	 * Метод не выполняется, если ответ уже отправлен (истекло время ожидания).
+	 *
+	 * @param response асинхронный ответ
+	 * @param work выполняемый метод
+	 * @param done действие, выполняемое после завершения принятого метода (в том числе не выполненного)
+	 * @return {@code false}, если метод не принят: превышено число ожидающих выполнения методов
+	 */
+	boolean execute(AsyncResponse response, Work work, Runnable done) {
+		if (!capacity.tryAcquire()) return false;
+		try {
+			executor.execute(() -> {
+				try {
+					if (response.isDone()) return;
+					if (permits != null) permits.acquire();
+					try {
+						resume(response, work.run());
+					} finally {
+						if (permits != null) permits.release();
+					}
+				} catch (Throwable e) {
+					response.resume(e);
+				} finally {
+					capacity.release();
+					done.run();
+				}
+			});
+		} catch (Exception e) {
+			// исполнитель остановлен
+			capacity.release();
+			done.run();
+			response.resume(e);
+		}
+		return true;
+	}
+
+	/**
+	 * Возобновить обработку HTTP запроса с результатом выполнения метода. Если ответ уже отправлен (истекло
+	 * время ожидания) или запрос отменен, тело ответа не записывается и освобождается, если оно реализует
+	 * {@link Closeable} (см. {@link ResultStream}).
+	 *
+	 * @param response асинхронный ответ
+	 * @param result результат выполнения метода
+	 */
+	static void resume(AsyncResponse response, Response result) {
+		if (response.resume(result) || result == null) return;
+		Object entity = result.getEntity();
+		if (entity instanceof Closeable) {
+			try {
+				((Closeable) entity).close();
+			} catch (IOException e) {
+				// Подавить исключение
+			}
+		}
+	}
+
+	/**
+	 * Остановить исполнитель
+	 */
+	void shutdown() {
+		executor.shutdown();
+	}
+
+}
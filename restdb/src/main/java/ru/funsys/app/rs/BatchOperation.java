@@ -0,0 +1,176 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.ws.rs.core.MultivaluedHashMap;
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Операция пакета, выполняемого методом {@code data/batch} в одной транзакции. Определение операции -
+ * объект тела запроса в формате JSON
+ * <pre>
+ * {"operation":"post","table":"rp.users","records":[{"us_name":"Ivan","us_last":"Petrov","us_email":"ip@mail.ru"}]}
+ * {"operation":"execute","query":"Users.rename","params":{"name":"Ivan"},"records":[...]}
+ * </pre>
+ * Допустимые операции: post, put, delete, upsert (записи {@code records} таблицы {@code table}) и execute
+ * (вызов метода {@code query} генератора SQL запросов с параметрами {@code params} и записями {@code records}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class BatchOperation {
+
+	/**
+	 * Операция: post, put, delete, upsert или execute
+	 */
+	private String operation;
+
+	/**
+	 * Имя таблицы или метода генератора SQL запросов (класс.метод)
+	 */
+	private String object;
+
+	/**
+	 * Записи операции
+	 */
+	private ArrayList<HashMap<String, Object>> records;
+
+	/**
+	 * Параметры метода генератора SQL запросов
+	 */
+	private MultivaluedMap<String, String> params = new MultivaluedHashMap<String, String>();
+
+	/**
+	 * Подготовленный запрос, {@code null} - запрос формируется на соединении с БД (upsert)
+	 */
+	private String sql;
+
+	/**
+	 * Поля записей в порядке параметров запроса
+	 */
+	private ArrayList<String> names = new ArrayList<String>();
+
+	/**
+	 * Поля записей, входящие в первичный ключ (put), или поля первичного ключа таблицы (upsert)
+	 */
+	private ArrayList<String> keyNames = new ArrayList<String>();
+
+	/**
+	 * Поля таблицы в порядке полей записей (upsert)
+	 */
+	private ArrayList<String> columns = new ArrayList<String>();
+
+	/**
+	 * Значения параметров запроса генератора SQL запросов
+	 */
+	private ArrayList<Object> parameters = new ArrayList<Object>();
+
+	/**
+	 * Разобрать определение операции.
+	 *
+	 * @param item объект тела запроса
+	 * @throws IllegalArgumentException недопустимое определение операции
+	 */
+	BatchOperation(HashMap<String, Object> item) {
+		operation = getString(item, "operation");
+		switch (operation) {
+		case "post":
+		case "put":
+		case "delete":
+		case "upsert":
+			object = getString(item, "table");
+			records = getRecords(item.get("records"));
+			if (records == null || records.isEmpty()) throw new IllegalArgumentException("records");
+			break;
+		case "execute":
+			object = getString(item, "query");
+			int pos = object.indexOf('.');
+			if (pos < 1 || pos == object.length() - 1) throw new IllegalArgumentException("query");
+			records = getRecords(item.get("records"));
+			Object value = item.get("params");
+			if (value != null) {
+				if (!(value instanceof Map)) throw new IllegalArgumentException("params");
+				for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+					if (entry.getValue() instanceof List) {
+						for (Object param : (List<?>) entry.getValue()) {
+							params.add(entry.getKey().toString(), param == null ? null : param.toString());
+						}
+					} else {
+						params.add(entry.getKey().toString(), entry.getValue() == null ? null : entry.getValue().toString());
+					}
+				}
+			}
+			break;
+		default:
+			throw new IllegalArgumentException("operation");
+		}
+	}
+
+	private static String getString(HashMap<String, Object> item, String name) {
+		Object value = item.get(name);
+		if (!(value instanceof String) || ((String) value).isEmpty()) throw new IllegalArgumentException(name);
+		return (String) value;
+	}
+
+	private static ArrayList<HashMap<String, Object>> getRecords(Object value) {
+		if (value == null) return null;
+		if (!(value instanceof List)) throw new IllegalArgumentException("records");
+		ArrayList<HashMap<String, Object>> records = new ArrayList<HashMap<String, Object>>();
+		for (Object record : (List<?>) value) {
+			if (!(record instanceof Map)) throw new IllegalArgumentException("records");
+			HashMap<String, Object> fields = new HashMap<String, Object>();
+			for (Map.Entry<?, ?> entry : ((Map<?, ?>) record).entrySet()) {
+				fields.put(entry.getKey().toString(), entry.getValue());
+			}
+			records.add(fields);
+		}
+		return records;
+	}
+
+	public String getOperation() {
+		return operation;
+	}
+
+	public String getObject() {
+		return object;
+	}
+
+	public ArrayList<HashMap<String, Object>> getRecords() {
+		return records;
+	}
+
+	public MultivaluedMap<String, String> getParams() {
+		return params;
+	}
+
+	public String getSql() {
+		return sql;
+	}
+
+	public void setSql(String sql) {
+		this.sql = sql;
+	}
+
+	public ArrayList<String> getNames() {
+		return names;
+	}
+
+	public ArrayList<String> getKeyNames() {
+		return keyNames;
+	}
+
+	public ArrayList<String> getColumns() {
+		return columns;
+	}
+
+	public ArrayList<Object> getParameters() {
+		return parameters;
+	}
+
+}
@@ -0,0 +1,117 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Пакетное выполнение одного подготовленного запроса с различными значениями параметров. Текст запроса
+ * не зависит от числа записей, значения параметров накапливаются методом {@code addBatch} и передаются в БД
+ * порциями размером {@code batchSize}.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class BatchStatement implements AutoCloseable {
+
+	private PreparedStatement statement;
+
+	/**
+	 * Размер порции
+	 */
+	private int batchSize;
+
+	/**
+	 * Число накопленных, но не переданных в БД наборов параметров
+	 */
+	private int size;
+
+	/**
+	 * Суммарное число обработанных записей
+	 */
+	private int count;
+
+	/**
+	 * Подготовить запрос.
+	 *
+	 * @param connection соединение с БД
+	 * @param sql запрос
+	 * @param batchSize размер порции
+	 * @throws SQLException ошибка подготовки запроса
+	 */
+	BatchStatement(Connection connection, String sql, int batchSize) throws SQLException {
+		statement = connection.prepareStatement(sql);
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Использовать ранее подготовленный запрос. Запрос закрывается методом {@link #close()}.
+	 *
+	 * @param statement подготовленный запрос
+	 * @param batchSize размер порции
+	 */
+	BatchStatement(PreparedStatement statement, int batchSize) {
+		this.statement = statement;
+		this.batchSize = batchSize;
+	}
+
+	/**
+	 * Добавить набор параметров запроса, при накоплении порции - выполнить ее.
+	 *
+	 * @param parameters значения параметров
+	 * @return результат выполнения порции или {@code null}, если порция не выполнялась
+	 * @throws SQLException ошибка выполнения
+	 */
+	int[] add(List<Object> parameters) throws SQLException {
+		for (int index = 0; index < parameters.size(); index++) {
+			statement.setObject(index + 1, parameters.get(index));
+		}
+		statement.addBatch();
+		if (++size == batchSize) return flush();
+		return null;
+	}
+
+	/**
+	 * Выполнить накопленные наборы параметров.
+	 *
+	 * @return число записей, обработанных каждым набором параметров
+	 * @throws SQLException ошибка выполнения, в том числе ошибка выполнения набора параметров ({@code EXECUTE_FAILED}),
+	 *                      если драйвер продолжил выполнение порции после ошибки
+	 */
+	int[] flush() throws SQLException {
+		if (size == 0) return new int[0];
+		int[] result = statement.executeBatch();
+		size = 0;
+		int total = 0;
+		for (int index = 0; index < result.length; index++) {
+			if (result[index] == Statement.EXECUTE_FAILED) {
+				throw new BatchUpdateException("Batch parameter set " + (index + 1) + " failed", result);
+			}
+			// драйвер может не сообщать число записей (SUCCESS_NO_INFO)
+			total += result[index] == Statement.SUCCESS_NO_INFO ? 1 : result[index];
+		}
+		count += total;
+		return result;
+	}
+
+	/**
+	 * Получить суммарное число обработанных записей
+	 *
+	 * @return число записей
+	 */
+	int getCount() {
+		return count;
+	}
+
+	@Override
+	public void close() throws SQLException {
+		statement.close();
+	}
+
+}
@@ -6,41 +6,217 @@ package ru.funsys.app.rs;
 
 import javax.ws.rs.DefaultValue;
 import javax.ws.rs.HeaderParam;
+import java.io.UnsupportedEncodingException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 import javax.ws.rs.PathParam;
+import javax.ws.rs.core.Configuration;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Request;
+import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 
 /**
+ * Параметры HTTP запроса.
+ * 
+ * <p>
+ * Параметры запроса, имена которых начинаются с символа {@code $}, являются зарезервированными
+ * параметрами управления выполнением запроса (например, {@code $shape=columnar}). Зарезервированные
+ * параметры не передаются в список параметров запроса {@link #getQueryParams()} и доступны через
+ * метод {@link #getOption(String)}.
+ * 
  * @author Валерий Лиховских
  *
  */
 public class BeanRequest {
 
+	/**
+	 * Префикс зарезервированных параметров запроса
+	 */
+	public static final char OPTION = '$';
+	
 	private MultivaluedMap<String, String> queryParams;
 	
+	private MultivaluedMap<String, String> options;
+	
+	private UriInfo uriInfo;
+	
  	@PathParam("object")
 	private String object;
 
 	@HeaderParam("Content-Language") @DefaultValue("ru")
 	private String lang;
+
+	/**
+	 * Признак выдачи времени этапов обработки запроса в заголовке ответа {@code Server-Timing}
+	 */
+	@HeaderParam("X-Trace")
+	private boolean traced;
 	  
+	@Context
+	private HttpHeaders headers;
+
+	@Context
+	private Configuration configuration;
+
+	@Context
+	private Request request;
+
+	/**
+	 * Набор метрик выполняемого метода сервиса
+	 */
+	private Metrics.Series series = Metrics.NONE;
+
+	/**
+	 * Время выполнения этапов обработки запроса
+	 */
+	private Trace trace = new Trace();
+
 	@Context
 	public void setQueryParameters(UriInfo ui) {
-		queryParams = ui.getQueryParameters();
+		uriInfo = ui;
+		queryParams = new MultivaluedHashMap<String, String>();
+		options = new MultivaluedHashMap<String, String>();
+		MultivaluedMap<String, String> parameters = ui.getQueryParameters();
+		for (String name : parameters.keySet()) {
+			if (name.length() > 1 && name.charAt(0) == OPTION) {
+				options.put(name.substring(1), parameters.get(name));
+			} else {
+				queryParams.put(name, parameters.get(name));
+			}
+		}
 	}
 
 	public MultivaluedMap<String, String> getQueryParams() {
 		return queryParams;
 	}
 
+	/**
+	 * Получить значение зарезервированного параметра запроса.
+	 * 
+	 * @param name имя параметра без префикса {@code $}
+	 * @return значение параметра или {@code null}, если параметр не определен
+	 */
+	public String getOption(String name) {
+		return options.getFirst(name);
+	}
+
+	/**
+	 * Получить URI текущего запроса с замененным значением зарезервированного параметра.
+	 * 
+	 * @param name имя параметра без префикса {@code $}
+	 * @param value значение параметра
+	 * @return URI запроса
+	 */
+	public URI getNextUri(String name, String value) {
+		StringBuilder builder = new StringBuilder(uriInfo.getAbsolutePath().toString());
+		char separator = '?';
+		try {
+			MultivaluedMap<String, String> parameters = uriInfo.getQueryParameters();
+			for (String parameter : parameters.keySet()) {
+				if (parameter.equals(OPTION + name)) continue;
+				for (String item : parameters.get(parameter)) {
+					builder.append(separator).append(URLEncoder.encode(parameter, "UTF-8")).append('=').append(URLEncoder.encode(item, "UTF-8"));
+					separator = '&';
+				}
+			}
+			builder.append(separator).append(URLEncoder.encode(OPTION + name, "UTF-8")).append('=').append(URLEncoder.encode(value, "UTF-8"));
+		} catch (UnsupportedEncodingException e) {
+			// UTF-8 поддерживается всегда
+		}
+		return URI.create(builder.toString());
+	}
+
 	public String getObject() {
 		return object;
 	}
 
+	/**
+	 * Проверить условия условного HTTP запроса (заголовок If-None-Match) по тегу сущности ответа.
+	 * 
+	 * @param tag тег сущности ответа
+	 * @return ответ 304 (Not Modified), если тег совпадает с тегом, известным клиенту, иначе - {@code null}
+	 */
+	public Response.ResponseBuilder evaluatePreconditions(EntityTag tag) {
+		return request.evaluatePreconditions(tag);
+	}
+
+	Metrics.Series getSeries() {
+		return series;
+	}
+
+	void setSeries(Metrics.Series series) {
+		this.series = series;
+	}
+
+	Trace getTrace() {
+		return trace;
+	}
+
+	/**
+	 * Проверить запрос выдачи времени этапов обработки запроса (заголовок {@code X-Trace: true}).
+	 * 
+	 * @return {@code true}, если время этапов выдается в заголовке ответа {@code Server-Timing}
+	 */
+	public boolean isTraced() {
+		return traced;
+	}
+
 	public String getLang() {
 		return lang;
 	}
 
+	/**
+	 * Получить тип данных ответа по заголовку Accept HTTP запроса
+	 * 
+	 * @return application/json или application/xml, по умолчанию - application/json
+	 */
+	public MediaType getMediaType() {
+		for (MediaType type : headers.getAcceptableMediaTypes()) {
+			if (type.isCompatible(MediaType.APPLICATION_JSON_TYPE)) return MediaType.APPLICATION_JSON_TYPE;
+			if (type.isCompatible(MediaType.APPLICATION_XML_TYPE)) return MediaType.APPLICATION_XML_TYPE;
+		}
+		return MediaType.APPLICATION_JSON_TYPE;
+	}
+
+	/**
+	 * Получить тип данных тела запроса
+	 * 
+	 * @return значение заголовка Content-Type HTTP запроса или {@code null}, если заголовок не определен
+	 */
+	public MediaType getContentType() {
+		return headers.getMediaType();
+	}
+
+	/**
+	 * Получить кодировку тела запроса по заголовку Content-Type HTTP запроса
+	 * 
+	 * @return кодировка, по умолчанию - UTF-8
+	 */
+	public Charset getCharset() {
+		MediaType type = headers.getMediaType();
+		String charset = type == null ? null : type.getParameters().get(MediaType.CHARSET_PARAMETER);
+		return charset == null ? StandardCharsets.UTF_8 : Charset.forName(charset);
+	}
+
+	/**
+	 * Получить формат вывода значений типа {@code Timestamp}, определяемый параметром
+	 * {@code timestamp.format} сервлета (см. web.xml)
+	 * 
+	 * @return формат или {@code null}, если параметр не определен
+	 */
+	public String getTimestampFormat() {
+		Object format = configuration.getProperty("timestamp.format");
+		return format == null ? null : format.toString();
+	}
+
 }
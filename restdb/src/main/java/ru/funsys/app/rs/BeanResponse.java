@@ -4,12 +4,18 @@
 package ru.funsys.app.rs;
 
 import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.XmlSeeAlso;
 
 /**
+ * Результат операции модификации таблицы: запрос и число обработанных записей. Подклассы перечислены
+ * в {@link XmlSeeAlso}, чтобы в формате XML элементы списка результатов (метод {@code data/batch})
+ * выдавались с полями подкласса.
+ * 
  * @author Валерий Лиховских
  *
  */
 @XmlRootElement
+@XmlSeeAlso(BeanResponseBulk.class)
 public class BeanResponse {
 
 	private String query;
@@ -0,0 +1,39 @@
+/**
+ * 
+ */
+package ru.funsys.app.rs;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import javax.xml.bind.annotation.XmlRootElement;
+
+/**
+ * Результат пакетной операции над записями, определенными значениями первичного ключа: суммарное число
+ * обработанных записей и значения ключей, по которым записи не найдены.
+ * 
+ * @author Валерий Лиховских
+ *
+ */
+@XmlRootElement
+public class BeanResponseBulk extends BeanResponse {
+
+	private ArrayList<HashMap<String,Object>> notFound;
+
+	public BeanResponseBulk() {
+		super();
+	}
+
+	public BeanResponseBulk(String query, int result) {
+		super(query, result);
+	}
+
+	public ArrayList<HashMap<String, Object>> getNotFound() {
+		return notFound;
+	}
+
+	public void setNotFound(ArrayList<HashMap<String, Object>> notFound) {
+		this.notFound = notFound;
+	}
+
+}
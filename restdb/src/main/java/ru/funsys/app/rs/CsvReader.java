@@ -0,0 +1,129 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+
+/**
+ * Последовательное чтение записей в формате CSV (RFC 4180) с разделителем запятая. Значения полей
+ * интерпретируются так же, как в команде PostgreSQL {@code COPY ... WITH (FORMAT csv)}: пустое значение
+ * без кавычек - NULL, пустое значение в кавычках - пустая строка. Пустые строки и метка порядка байтов
+ * (BOM) в начале потока пропускаются.
+ *
+ * <p>
+ * Символы читаются из потока по одному, поэтому после чтения записи непрочитанная часть потока может быть
+ * передана далее (например, в {@code CopyManager}) методом {@link #getRemainder()}.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class CsvReader {
+
+	private Reader reader;
+
+	/**
+	 * Прочитанный, но не обработанный символ
+	 */
+	private int pending = -2;
+
+	/**
+	 * Признак начала потока
+	 */
+	private boolean start = true;
+
+	CsvReader(Reader reader) {
+		this.reader = reader;
+	}
+
+	/**
+	 * Прочитать очередную запись.
+	 *
+	 * @return значения полей записи или {@code null} при достижении конца потока
+	 * @throws IOException ошибка чтения или нарушение формата
+	 */
+	ArrayList<String> read() throws IOException {
+		int c = next();
+		while (c == '\r' || c == '\n') {
+			c = next();
+		}
+		if (c == -1) return null;
+		ArrayList<String> record = new ArrayList<String>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		while (true) {
+			if (c == '"' && field.length() == 0 && !quoted) {
+				quoted = true;
+				while (true) {
+					c = next();
+					if (c == -1) throw new IOException("Unexpected end of stream in quoted field");
+					if (c == '"') {
+						c = next();
+						if (c != '"') break;
+					}
+					field.append((char) c);
+				}
+				continue;
+			}
+			if (c == ',') {
+				record.add(toValue(field, quoted));
+				field.setLength(0);
+				quoted = false;
+			} else if (c == '\r' || c == '\n' || c == -1) {
+				if (c == '\r') {
+					c = next();
+					if (c != '\n') pending = c;
+				}
+				record.add(toValue(field, quoted));
+				return record;
+			} else if (quoted) {
+				throw new IOException("Unexpected character after quoted field: " + (char) c);
+			} else {
+				field.append((char) c);
+			}
+			c = next();
+		}
+	}
+
+	/**
+	 * Получить непрочитанную часть потока, начинающуюся с очередной записи. Символ, прочитанный после
+	 * окончания предыдущей записи, и пустые строки перед очередной записью в нее не входят.
+	 *
+	 * @return поток непрочитанных символов
+	 * @throws IOException ошибка чтения
+	 */
+	Reader getRemainder() throws IOException {
+		int c = next();
+		while (c == '\r' || c == '\n') {
+			c = next();
+		}
+		if (c == -1) return new StringReader("");
+		PushbackReader remainder = new PushbackReader(reader);
+		remainder.unread(c);
+		return remainder;
+	}
+
+	private String toValue(StringBuilder field, boolean quoted) {
+		if (!quoted && field.length() == 0) return null;
+		return field.toString();
+	}
+
+	private int next() throws IOException {
+		if (pending != -2) {
+			int c = pending;
+			pending = -2;
+			return c;
+		}
+		int c = reader.read();
+		if (start) {
+			start = false;
+			if (c == '\uFEFF') c = reader.read(); // BOM
+		}
+		return c;
+	}
+
+}
@@ -0,0 +1,203 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.ws.rs.core.MultivaluedMap;
+
+/**
+ * Потокобезопасный реестр классов генераторов SQL запросов. Экземпляр класса генератора и методы генерации
+ * запросов определяются один раз при первом обращении, методы кэшируются в виде {@code MethodHandle},
+ * вызов которых не требует рефлексии. Отрицательные результаты поиска (класс или метод не найден) также
+ * кэшируются, чтобы повторные запросы к отсутствующему генератору не выполняли поиск рефлексией. Имена
+ * классов и методов определяются адресом запроса, поэтому число кэшированных отрицательных результатов
+ * ограничено, сверх ограничения поиск выполняется при каждом обращении.
+ *
+ * <p>
+ * Метод генерации запроса выбора данных
+ * <pre>
+ * public String name(String lang, MultivaluedMap&lt;String, String&gt; parameters, ArrayList&lt;Object&gt; list)
+ * </pre>
+ * Метод генерации запроса модификации данных
+ * <pre>
+ * public String name(String lang, MultivaluedMap&lt;String, String&gt; parameters, ArrayList&lt;HashMap&lt;String, Object&gt;&gt; records, ArrayList&lt;Object&gt; list)
+ * </pre>
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class GeneratorRegistry {
+
+	/**
+	 * Тип метода генерации запроса выбора данных
+	 */
+	static final MethodType SELECT = MethodType.methodType(String.class, String.class, MultivaluedMap.class, ArrayList.class);
+
+	/**
+	 * Тип метода генерации запроса модификации данных
+	 */
+	static final MethodType EXECUTE = MethodType.methodType(String.class, String.class, MultivaluedMap.class, ArrayList.class, ArrayList.class);
+
+	/**
+	 * Максимальное число кэшированных отрицательных результатов поиска классов и методов
+	 */
+	static final int MAX_MISSES = 10000;
+
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.publicLookup();
+
+	/**
+	 * Список пакетов поиска классов генераторов
+	 */
+	private final List<String> packages;
+
+	/**
+	 * Экземпляры классов генераторов по имени класса
+	 */
+	private final ConcurrentHashMap<String, Object> generators = new ConcurrentHashMap<String, Object>();
+
+	/**
+	 * Методы генераторов, связанные с экземпляром класса генератора, по ключу {@code тип:класс.метод}
+	 */
+	private final ConcurrentHashMap<String, MethodHandle> methods = new ConcurrentHashMap<String, MethodHandle>();
+
+	/**
+	 * Имена ненайденных классов генераторов
+	 */
+	private final Set<String> missingGenerators = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * Ключи {@code тип:класс.метод} ненайденных методов генераторов
+	 */
+	private final Set<String> missingMethods = ConcurrentHashMap.newKeySet();
+
+	GeneratorRegistry(List<String> packages) {
+		super();
+		this.packages = packages;
+	}
+
+	/**
+	 * Получить экземпляр класса генератора.
+	 *
+	 * @param name имя класса без имени пакета
+	 * @return экземпляр класса генератора или {@code null}, если класс не найден в списке пакетов
+	 */
+	Object getGenerator(String name) {
+		if (name == null || missingGenerators.contains(name)) return null;
+		Object generator = generators.computeIfAbsent(name, this::create);
+		if (generator == null) miss(missingGenerators, name);
+		return generator;
+	}
+
+	/**
+	 * Получить метод генератора, связанный с экземпляром класса генератора.
+	 *
+	 * @param name имя класса без имени пакета
+	 * @param method имя метода
+	 * @param type тип метода {@link #SELECT} или {@link #EXECUTE}
+	 * @return метод генератора или {@code null}, если класс или метод не найден
+	 */
+	MethodHandle getMethod(String name, String method, MethodType type) {
+		String key = (type == SELECT ? "S:" : "E:") + name + '.' + method;
+		MethodHandle handle = methods.get(key);
+		if (handle == null && !missingMethods.contains(key)) {
+			handle = methods.computeIfAbsent(key, k -> find(name, method, type));
+			if (handle == null) miss(missingMethods, key);
+		}
+		return handle;
+	}
+
+	/**
+	 * Кэшировать отрицательный результат поиска, если не превышено ограничение {@link #MAX_MISSES}.
+	 *
+	 * @param missing отрицательные результаты поиска
+	 * @param key имя класса или ключ метода
+	 */
+	private static void miss(Set<String> missing, String key) {
+		if (missing.size() < MAX_MISSES) missing.add(key);
+	}
+
+	/**
+	 * Определить все методы генерации запросов класса генератора.
+	 *
+	 * @param name имя класса без имени пакета
+	 * @return число найденных методов, -1 - класс не найден
+	 */
+	int resolve(String name) {
+		Object generator = getGenerator(name);
+		if (generator == null) return -1;
+		int count = 0;
+		for (Method method : generator.getClass().getMethods()) {
+			if (method.getReturnType() != String.class || Modifier.isStatic(method.getModifiers())) continue;
+			if (MethodType.methodType(String.class, method.getParameterTypes()).equals(SELECT)) {
+				if (getMethod(name, method.getName(), SELECT) != null) count++;
+			} else if (MethodType.methodType(String.class, method.getParameterTypes()).equals(EXECUTE)) {
+				if (getMethod(name, method.getName(), EXECUTE) != null) count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Получить число кэшированных экземпляров классов и методов генераторов
+	 *
+	 * @return размер реестра
+	 */
+	int size() {
+		return generators.size() + methods.size();
+	}
+
+	/**
+	 * Получить число кэшированных отрицательных результатов поиска классов и методов генераторов
+	 *
+	 * @return число ненайденных классов и методов
+	 */
+	int misses() {
+		return missingGenerators.size() + missingMethods.size();
+	}
+
+	/**
+	 * Создать экземпляр класса генератора.
+	 *
+	 * @param name имя класса без имени пакета
+	 * @return экземпляр класса или {@code null}, если класс не найден
+	 */
+	private Object create(String name) {
+		for (String packageClass : packages) {
+			try {
+				return Class.forName(packageClass + '.' + name).newInstance();
+			} catch (Exception e) {
+				// Подавить исключение
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Найти метод генератора.
+	 *
+	 * @param name имя класса без имени пакета
+	 * @param method имя метода
+	 * @param type тип метода
+	 * @return метод или {@code null}, если класс или метод не найден
+	 */
+	private MethodHandle find(String name, String method, MethodType type) {
+		Object generator = getGenerator(name);
+		if (generator == null) return null;
+		try {
+			return LOOKUP.findVirtual(generator.getClass(), method, type).bindTo(generator);
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			return null;
+		}
+	}
+
+}
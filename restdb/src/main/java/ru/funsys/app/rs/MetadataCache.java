@@ -0,0 +1,140 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Потокобезопасный кэш метаданных таблиц БД. Метаданные каждой таблицы загружаются из БД один раз:
+ * если метаданные таблицы запрошены одновременно несколькими потоками, загрузку выполняет первый поток,
+ * остальные ожидают ее завершения. Ошибка загрузки и пустые метаданные (таблица не существует) не кэшируются,
+ * поэтому обращения к несуществующим таблицам не увеличивают размер кэша, а созданная позже таблица
+ * обнаруживается при следующем обращении. Число записей кэша ограничено, метаданные таблиц сверх этого
+ * числа загружаются при каждом обращении.
+ *
+ * <p>
+ * Время жизни записи кэша отсчитывается от момента завершения загрузки, по его истечении метаданные
+ * загружаются повторно при следующем обращении.
+ *
+ * <p>
+ * Ключ кэша - имя таблицы в нижнем регистре, как и в {@link StatementLimits} и {@link ResultCache}, поэтому
+ * имена таблицы, записанные в запросах в разном регистре, используют одну запись кэша.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class MetadataCache {
+
+	/**
+	 * Загрузка метаданных таблицы из БД
+	 */
+	interface Loader {
+
+		TableMetadata load(String table) throws Exception;
+
+	}
+
+	/**
+	 * Запись кэша
+	 */
+	private static class Entry {
+
+		private final CompletableFuture<TableMetadata> future = new CompletableFuture<TableMetadata>();
+
+		/**
+		 * Момент устаревания записи, до завершения загрузки - {@code Long.MAX_VALUE}
+		 */
+		private volatile long expires = Long.MAX_VALUE;
+
+	}
+
+	/**
+	 * Максимальное число записей кэша
+	 */
+	static final int MAX_ENTRIES = 10000;
+
+	private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+
+	private final Loader loader;
+
+	MetadataCache(Loader loader) {
+		super();
+		this.loader = loader;
+	}
+
+	/**
+	 * Получить метаданные таблицы, при отсутствии в кэше или устаревании - загрузить из БД.
+	 *
+	 * @param table полное имя таблицы
+	 * @param ttl время жизни записи кэша в миллисекундах, 0 - не ограничено
+	 * @return метаданные таблицы
+	 * @throws Exception ошибка загрузки метаданных
+	 */
+	TableMetadata get(String table, long ttl) throws Exception {
+		String key = table.toLowerCase(Locale.ROOT);
+		while (true) {
+			Entry entry = entries.get(key);
+			if (entry == null && entries.size() >= MAX_ENTRIES) return loader.load(table);
+			if (entry == null || entry.expires < System.currentTimeMillis()) {
+				Entry created = new Entry();
+				boolean owner = entry == null ? entries.putIfAbsent(key, created) == null : entries.replace(key, entry, created);
+				if (!owner) continue; // загрузку начал другой поток
+				load(table, key, created, ttl);
+				entry = created;
+			}
+			try {
+				return entry.future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Exception) throw (Exception) cause;
+				throw (Error) cause;
+			}
+		}
+	}
+
+	private void load(String table, String key, Entry entry, long ttl) {
+		try {
+			TableMetadata metadata = loader.load(table);
+			if (metadata.getColumns().isEmpty()) {
+				// таблица не существует, ожидающие потоки получают результат, запись удаляется
+				entries.remove(key, entry);
+			} else if (ttl > 0) {
+				entry.expires = System.currentTimeMillis() + ttl;
+			}
+			entry.future.complete(metadata);
+		} catch (Throwable e) {
+			entries.remove(key, entry);
+			entry.future.completeExceptionally(e);
+		}
+	}
+
+	/**
+	 * Удалить метаданные таблицы из кэша. Имя таблицы сравнивается без учета регистра.
+	 *
+	 * @param table полное имя таблицы
+	 */
+	void invalidate(String table) {
+		entries.remove(table.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Получить число записей кэша
+	 *
+	 * @return число записей
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Очистить кэш
+	 */
+	void invalidateAll() {
+		entries.clear();
+	}
+
+}
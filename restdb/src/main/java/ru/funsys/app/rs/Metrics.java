@@ -0,0 +1,286 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Метрики методов сервиса: гистограммы времени выполнения, число прочитанных и записанных записей, объем
+ * тела запроса и ответа, число ошибок по кодам ошибок. Метрики собираются по методу сервиса (get, post, put,
+ * delete, load, select, execute, info) и имени таблицы или класса генератора SQL запросов. Счетчики
+ * построены на {@link LongAdder}, регистрация значений выполняется без блокировок.
+ *
+ * <p>
+ * Метрики выдаются в текстовом формате Prometheus, например
+ * <pre>
+ * restdb_request_duration_seconds_bucket{operation="get",name="rp.users",le="0.005"} 1520
+ * restdb_rows_read_total{operation="get",name="rp.users"} 48311
+ * restdb_errors_total{code="RST0001E"} 3
+ * </pre>
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class Metrics {
+
+	/**
+	 * Верхние границы интервалов гистограммы времени выполнения в наносекундах
+	 */
+	private static final long[] BOUNDS = {
+			1000000L, 2500000L, 5000000L, 10000000L, 25000000L, 50000000L, 100000000L,
+			250000000L, 500000000L, 1000000000L, 2500000000L, 5000000000L, 10000000000L
+	};
+
+	/**
+	 * Максимальное число наборов метрик, метрики запросов к таблицам сверх этого числа собираются
+	 * под именем {@code other}. Защищает от неограниченного роста числа наборов при обращении
+	 * к несуществующим таблицам.
+	 */
+	private static final int MAX_SERIES = 1000;
+
+	/**
+	 * Код ошибки в тексте сообщения, например, RST0001E
+	 */
+	private static final Pattern CODE = Pattern.compile("[A-Z]{3}\\d{4}[EWI]");
+
+	/**
+	 * Набор метрик, не включаемый в выдачу
+	 */
+	static final Series NONE = new Series();
+
+	private final ConcurrentHashMap<List<String>, Series> series = new ConcurrentHashMap<List<String>, Series>();
+
+	private final ConcurrentHashMap<String, LongAdder> errors = new ConcurrentHashMap<String, LongAdder>();
+
+	/**
+	 * Получить набор метрик метода сервиса, при первом обращении - создать.
+	 *
+	 * @param operation метод сервиса
+	 * @param name имя таблицы или класса генератора, может быть {@code null}
+	 * @return набор метрик
+	 */
+	Series getSeries(String operation, String name) {
+		List<String> key = Arrays.asList(operation, name == null ? "" : name);
+		Series current = series.get(key);
+		if (current != null) return current;
+		if (series.size() >= MAX_SERIES) key = Arrays.asList(operation, "other");
+		return series.computeIfAbsent(key, item -> new Series());
+	}
+
+	/**
+	 * Зарегистрировать ошибку выполнения метода сервиса.
+	 *
+	 * @param series набор метрик метода
+	 * @param e ошибка
+	 */
+	void error(Series series, Throwable e) {
+		error(series, getCode(e));
+	}
+
+	/**
+	 * Зарегистрировать ошибку выполнения метода сервиса.
+	 *
+	 * @param series набор метрик метода
+	 * @param code код ошибки
+	 */
+	void error(Series series, String code) {
+		series.counters[4].increment();
+		errors.computeIfAbsent(code, item -> new LongAdder()).increment();
+	}
+
+	/**
+	 * Получить код ошибки из сообщений цепочки исключений, при отсутствии - имя класса исключения.
+	 *
+	 * @param e исключение
+	 * @return код ошибки
+	 */
+	static String getCode(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			if (cause.getMessage() == null) continue;
+			Matcher matcher = CODE.matcher(cause.getMessage());
+			if (matcher.find()) return matcher.group();
+		}
+		return e.getClass().getSimpleName();
+	}
+
+	/**
+	 * Сформировать текст метрик в формате Prometheus.
+	 *
+	 * @param cache статистика использования кэша результатов (см. {@link ResultCache#getStatistics()})
+	 * @param coalesced число объединенных запросов
+	 * @return текст метрик
+	 */
+	String toText(RowTable cache, long coalesced) {
+		TreeMap<String, Series> sorted = new TreeMap<String, Series>();
+		for (Map.Entry<List<String>, Series> entry : series.entrySet()) {
+			sorted.put("operation=\"" + escape(entry.getKey().get(0)) + "\",name=\"" + escape(entry.getKey().get(1)) + '"', entry.getValue());
+		}
+		StringBuilder builder = new StringBuilder(4096);
+		header(builder, "restdb_request_duration_seconds", "Service method execution time.", "histogram");
+		for (Map.Entry<String, Series> entry : sorted.entrySet()) {
+			Series item = entry.getValue();
+			long count = 0;
+			for (int index = 0; index <= BOUNDS.length; index++) {
+				count += item.buckets[index].sum();
+				builder.append("restdb_request_duration_seconds_bucket{").append(entry.getKey()).append(",le=\"")
+						.append(index < BOUNDS.length ? Double.toString(BOUNDS[index] / 1e9) : "+Inf").append("\"} ").append(count).append('\n');
+			}
+			builder.append("restdb_request_duration_seconds_sum{").append(entry.getKey()).append("} ").append(item.sum.sum() / 1e9).append('\n');
+			builder.append("restdb_request_duration_seconds_count{").append(entry.getKey()).append("} ").append(count).append('\n');
+		}
+		counter(builder, sorted, "restdb_rows_read_total", "Rows read by SELECT queries.", 0);
+		counter(builder, sorted, "restdb_rows_written_total", "Rows inserted, updated or deleted.", 1);
+		counter(builder, sorted, "restdb_request_bytes_total", "Request body bytes.", 2);
+		counter(builder, sorted, "restdb_response_bytes_total", "Response body bytes of query results.", 3);
+		counter(builder, sorted, "restdb_request_errors_total", "Failed or rejected requests.", 4);
+		header(builder, "restdb_errors_total", "Errors by code.", "counter");
+		for (Map.Entry<String, LongAdder> entry : new TreeMap<String, LongAdder>(errors).entrySet()) {
+			builder.append("restdb_errors_total{code=\"").append(escape(entry.getKey())).append("\"} ").append(entry.getValue().sum()).append('\n');
+		}
+		String[] names = {"restdb_cache_size", "restdb_cache_hits_total", "restdb_cache_misses_total", "restdb_cache_evictions_total"};
+		String[] help = {"Results in the result cache.", "Result cache hits.", "Result cache misses.", "Result cache evictions."};
+		for (int column = 0; column < names.length; column++) {
+			header(builder, names[column], help[column], column == 0 ? "gauge" : "counter");
+			for (Object[] row : cache.getRows()) {
+				builder.append(names[column]).append("{name=\"").append(escape(row[0].toString())).append("\"} ").append(row[column + 1]).append('\n');
+			}
+		}
+		header(builder, "restdb_coalesced_total", "Requests served by an identical in-flight query.", "counter");
+		builder.append("restdb_coalesced_total ").append(coalesced).append('\n');
+		return builder.toString();
+	}
+
+	private static void header(StringBuilder builder, String name, String help, String type) {
+		builder.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		builder.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	private static void counter(StringBuilder builder, TreeMap<String, Series> sorted, String name, String help, int counter) {
+		header(builder, name, help, "counter");
+		for (Map.Entry<String, Series> entry : sorted.entrySet()) {
+			builder.append(name).append('{').append(entry.getKey()).append("} ").append(entry.getValue().counters[counter].sum()).append('\n');
+		}
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+
+	/**
+	 * Набор метрик метода сервиса для таблицы или класса генератора
+	 */
+	static class Series {
+
+		private final LongAdder[] buckets = new LongAdder[BOUNDS.length + 1];
+
+		/**
+		 * Суммарное время выполнения в наносекундах
+		 */
+		private final LongAdder sum = new LongAdder();
+
+		/**
+		 * Счетчики: прочитанные записи, записанные записи, байты тела запроса, байты тела ответа, ошибки
+		 */
+		private final LongAdder[] counters = new LongAdder[5];
+
+		private Series() {
+			for (int index = 0; index < buckets.length; index++) {
+				buckets[index] = new LongAdder();
+			}
+			for (int index = 0; index < counters.length; index++) {
+				counters[index] = new LongAdder();
+			}
+		}
+
+		/**
+		 * Зарегистрировать время выполнения метода.
+		 *
+		 * @param nanos время выполнения в наносекундах
+		 */
+		void observe(long nanos) {
+			int index = 0;
+			while (index < BOUNDS.length && nanos > BOUNDS[index]) index++;
+			buckets[index].increment();
+			sum.add(nanos);
+		}
+
+		void read(long rows) {
+			counters[0].add(rows);
+		}
+
+		void written(long rows) {
+			counters[1].add(rows);
+		}
+
+		/**
+		 * Подсчитывать байты, читаемые из потока тела запроса.
+		 *
+		 * @param in поток тела запроса
+		 * @return поток с подсчетом байтов
+		 */
+		InputStream count(InputStream in) {
+			LongAdder bytes = counters[2];
+			return new FilterInputStream(in) {
+
+				@Override
+				public int read() throws IOException {
+					int value = super.read();
+					if (value != -1) bytes.increment();
+					return value;
+				}
+
+				@Override
+				public int read(byte[] buffer, int offset, int length) throws IOException {
+					int count = super.read(buffer, offset, length);
+					if (count > 0) bytes.add(count);
+					return count;
+				}
+
+			};
+		}
+
+		/**
+		 * Подсчитывать байты, записываемые в поток тела ответа.
+		 *
+		 * @param out поток тела ответа
+		 * @return поток с подсчетом байтов
+		 */
+		OutputStream count(OutputStream out) {
+			LongAdder bytes = counters[3];
+			return new FilterOutputStream(out) {
+
+				@Override
+				public void write(int value) throws IOException {
+					out.write(value);
+					bytes.increment();
+				}
+
+				@Override
+				public void write(byte[] buffer, int offset, int length) throws IOException {
+					out.write(buffer, offset, length);
+					bytes.add(length);
+				}
+
+			};
+		}
+
+		void sent(long bytes) {
+			counters[3].add(bytes);
+		}
+
+	}
+
+}
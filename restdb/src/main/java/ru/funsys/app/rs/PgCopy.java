@@ -0,0 +1,54 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.postgresql.PGConnection;
+
+/**
+ * Загрузка данных командой PostgreSQL {@code COPY ... FROM STDIN}. Классы драйвера PostgreSQL используются
+ * только в этом классе, поэтому при работе с другими СУБД их отсутствие не приводит к ошибке.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class PgCopy {
+
+	private PgCopy() {
+	}
+
+	/**
+	 * Проверить, что соединение является соединением PostgreSQL.
+	 *
+	 * @param connection соединение с БД (в том числе соединение пула)
+	 * @return {@code true}, если команда COPY доступна
+	 */
+	static boolean isSupported(Connection connection) {
+		try {
+			return connection.isWrapperFor(PGConnection.class);
+		} catch (SQLException | LinkageError e) {
+			// драйвер PostgreSQL не загружен
+			return false;
+		}
+	}
+
+	/**
+	 * Выполнить команду COPY, передав в нее данные из потока.
+	 *
+	 * @param connection соединение с БД
+	 * @param sql команда {@code COPY ... FROM STDIN}
+	 * @param reader поток данных
+	 * @return число загруженных записей
+	 * @throws SQLException ошибка выполнения команды
+	 * @throws IOException ошибка чтения потока
+	 */
+	static long copyIn(Connection connection, String sql, Reader reader) throws SQLException, IOException {
+		return connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sql, reader);
+	}
+
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Объединение одновременно выполняемых одинаковых запросов SELECT. Пока выполняется запрос, последующие
+ * запросы с тем же текстом и теми же значениями параметров не выполняются, а ожидают результата
+ * выполняемого запроса. Результат после завершения запроса не сохраняется.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class QueryCoalescer {
+
+	/**
+	 * Выполняемые запросы по ключу: текст запроса и значения параметров
+	 */
+	private final ConcurrentHashMap<List<Object>, CompletableFuture<RowTable>> running = new ConcurrentHashMap<List<Object>, CompletableFuture<RowTable>>();
+
+	/**
+	 * Число запросов, получивших результат выполняемого запроса
+	 */
+	private final LongAdder coalesced = new LongAdder();
+
+	/**
+	 * Выполнить запрос или дождаться результата такого же выполняемого запроса.
+	 *
+	 * @param sql текст запроса
+	 * @param parameters параметры запроса
+	 * @param loader выполнение запроса
+	 * @return результат запроса, общий для всех объединенных запросов; записи результата не должны изменяться
+	 * @throws Exception ошибка выполнения запроса
+	 */
+	RowTable get(String sql, List<Object> parameters, Callable<RowTable> loader) throws Exception {
+		ArrayList<Object> key = new ArrayList<Object>(parameters.size() + 1);
+		key.add(sql);
+		key.addAll(parameters);
+		CompletableFuture<RowTable> future = new CompletableFuture<RowTable>();
+		CompletableFuture<RowTable> existing = running.putIfAbsent(key, future);
+		if (existing != null) {
+			coalesced.increment();
+			try {
+				return existing.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof Exception) throw (Exception) cause;
+				throw (Error) cause;
+			}
+		}
+		try {
+			RowTable rows = loader.call();
+			future.complete(rows);
+			return rows;
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			running.remove(key, future);
+		}
+	}
+
+	/**
+	 * Получить число запросов, получивших результат выполняемого запроса.
+	 *
+	 * @return число объединенных запросов
+	 */
+	long getCoalesced() {
+		return coalesced.sum();
+	}
+
+}
@@ -0,0 +1,193 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
+import java.util.HashMap;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Последовательное чтение записей из тела HTTP запроса в формате JSON или XML. Записи читаются по одной
+ * по мере разбора тела запроса, объем используемой памяти не зависит от размера тела запроса.
+ *
+ * <p>
+ * Формат JSON - массив объектов (или один объект), формат XML
+ * <pre>
+ * &lt;rows&gt;
+ *   &lt;row&gt;
+ *     &lt;field name="st_id"&gt;43&lt;/field&gt;
+ *     &lt;field name="st_name"&gt;Test43&lt;/field&gt;
+ *   &lt;/row&gt;
+ * &lt;/rows&gt;
+ * </pre>
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public abstract class RecordReader {
+
+	/**
+	 * Фабрика анализаторов JSON
+	 */
+	private static final JsonFactory JSON = new ObjectMapper().getFactory();
+
+	/**
+	 * Фабрика анализаторов XML
+	 */
+	private static final XMLInputFactory XML = XMLInputFactory.newInstance();
+
+	static {
+		XML.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		XML.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/**
+	 * Создать экземпляр класса чтения для типа данных тела запроса.
+	 *
+	 * @param type тип данных тела запроса, application/json (по умолчанию) или application/xml
+	 * @param in поток тела запроса
+	 * @param charset кодировка тела запроса, {@code null} - определяется по содержимому тела запроса
+	 * @return экземпляр класса чтения
+	 * @throws IOException ошибка чтения
+	 */
+	public static RecordReader getInstance(MediaType type, InputStream in, String charset) throws IOException {
+		PushbackInputStream stream = new PushbackInputStream(in);
+		int first = stream.read();
+		if (first == -1) return new Empty();
+		stream.unread(first);
+		if (type != null && MediaType.APPLICATION_XML_TYPE.isCompatible(type) || type != null && type.getSubtype().endsWith("+xml")) {
+			try {
+				return new Xml(charset == null ? XML.createXMLStreamReader(stream) : XML.createXMLStreamReader(stream, charset));
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+		if (charset == null) return new Json(JSON.createParser(stream));
+		return new Json(JSON.createParser(new InputStreamReader(stream, charset)));
+	}
+
+	/**
+	 * Прочитать очередную запись.
+	 *
+	 * @return запись или {@code null}, если записей больше нет
+	 * @throws IOException ошибка чтения или нарушение формата
+	 */
+	public abstract HashMap<String, Object> next() throws IOException;
+
+	/**
+	 * Пустое тело запроса
+	 */
+	private static class Empty extends RecordReader {
+
+		@Override
+		public HashMap<String, Object> next() {
+			return null;
+		}
+
+	}
+
+	/**
+	 * Чтение в формате JSON
+	 */
+	private static class Json extends RecordReader {
+
+		private JsonParser parser;
+
+		/**
+		 * Признак массива записей
+		 */
+		private boolean array;
+
+		private Json(JsonParser parser) throws IOException {
+			this.parser = parser;
+			JsonToken token = parser.nextToken();
+			if (token == JsonToken.START_ARRAY) {
+				array = true;
+			} else if (token != JsonToken.START_OBJECT) {
+				throw new IOException("Expected array of objects: " + parser.getCurrentLocation());
+			}
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public HashMap<String, Object> next() throws IOException {
+			JsonToken token;
+			if (array) {
+				token = parser.nextToken();
+				if (token == JsonToken.END_ARRAY || token == null) return null;
+			} else {
+				token = parser.currentToken();
+				if (token != JsonToken.START_OBJECT) return null;
+			}
+			if (token != JsonToken.START_OBJECT) {
+				throw new IOException("Expected object: " + parser.getCurrentLocation());
+			}
+			HashMap<String, Object> record = new HashMap<String, Object>();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				record.put(name, parser.readValueAs(Object.class));
+			}
+			if (!array) parser.clearCurrentToken();
+			return record;
+		}
+
+	}
+
+	/**
+	 * Чтение в формате XML
+	 */
+	private static class Xml extends RecordReader {
+
+		private XMLStreamReader reader;
+
+		private Xml(XMLStreamReader reader) {
+			this.reader = reader;
+		}
+
+		@Override
+		public HashMap<String, Object> next() throws IOException {
+			try {
+				// найти начало очередной записи
+				while (reader.hasNext()) {
+					if (reader.next() == XMLStreamConstants.START_ELEMENT && "row".equals(reader.getLocalName())) {
+						return readRow();
+					}
+				}
+				return null;
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private HashMap<String, Object> readRow() throws XMLStreamException {
+			HashMap<String, Object> record = new HashMap<String, Object>();
+			while (reader.hasNext()) {
+				int event = reader.next();
+				if (event == XMLStreamConstants.START_ELEMENT && "field".equals(reader.getLocalName())) {
+					String name = reader.getAttributeValue(null, "name");
+					record.put(name, reader.getElementText());
+				} else if (event == XMLStreamConstants.END_ELEMENT && "row".equals(reader.getLocalName())) {
+					break;
+				}
+			}
+			return record;
+		}
+
+	}
+
+}
@@ -0,0 +1,209 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Кэш результатов запросов SELECT для таблиц и методов генераторов SQL запросов, определенных
+ * в конфигурации. Результаты каждой таблицы (области кэша) хранятся отдельно, ключ результата - текст
+ * запроса и значения его параметров. Размер области кэша ограничен, при превышении вытесняется результат,
+ * не использовавшийся дольше других; результат устаревает по истечении времени жизни.
+ *
+ * <p>
+ * Модификация таблицы очищает область кэша таблицы и области методов генераторов, запросы которых
+ * могут использовать таблицу. Результат запроса, выполнявшегося во время очистки области, в кэш не помещается.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class ResultCache {
+
+	/**
+	 * Область кэша
+	 */
+	private class Region {
+
+		private final LinkedHashMap<List<Object>, Entry> entries = new LinkedHashMap<List<Object>, Entry>(16, 0.75f, true) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<List<Object>, Entry> eldest) {
+				if (size() > capacity) {
+					evictions.increment();
+					return true;
+				}
+				return false;
+			}
+
+		};
+
+		/**
+		 * Номер поколения области, увеличивается при каждой очистке
+		 */
+		private long generation;
+
+		private final LongAdder hits = new LongAdder();
+
+		private final LongAdder misses = new LongAdder();
+
+		private final LongAdder evictions = new LongAdder();
+
+		private synchronized void clear() {
+			entries.clear();
+			generation++;
+		}
+
+	}
+
+	/**
+	 * Запись кэша
+	 */
+	private static class Entry {
+
+		private final RowTable rows;
+
+		private final long expires;
+
+		private Entry(RowTable rows, long expires) {
+			this.rows = rows;
+			this.expires = expires;
+		}
+
+	}
+
+	/**
+	 * Области кэша по имени таблицы или метода генератора в нижнем регистре
+	 */
+	private final ConcurrentHashMap<String, Region> regions = new ConcurrentHashMap<String, Region>();
+
+	/**
+	 * Имена областей методов генераторов SQL запросов
+	 */
+	private final HashSet<String> generators = new HashSet<String>();
+
+	private final int capacity;
+
+	private final long ttl;
+
+	/**
+	 * Создать кэш.
+	 *
+	 * @param tables имена кэшируемых таблиц ({@code schema.table})
+	 * @param queries имена кэшируемых методов генераторов ({@code Class.method})
+	 * @param capacity максимальное число результатов в области кэша
+	 * @param ttl время жизни результата в миллисекундах
+	 */
+	ResultCache(List<String> tables, List<String> queries, int capacity, long ttl) {
+		super();
+		this.capacity = capacity;
+		this.ttl = ttl;
+		for (String table : tables) {
+			regions.put(table.toLowerCase(Locale.ROOT), new Region());
+		}
+		for (String query : queries) {
+			String name = query.toLowerCase(Locale.ROOT);
+			regions.put(name, new Region());
+			generators.add(name);
+		}
+	}
+
+	/**
+	 * Проверить, кэшируются ли результаты запросов таблицы или метода генератора.
+	 *
+	 * @param name имя таблицы или метода генератора
+	 * @return {@code true}, если результаты кэшируются
+	 */
+	boolean isCached(String name) {
+		return name != null && !regions.isEmpty() && regions.containsKey(name.toLowerCase(Locale.ROOT));
+	}
+
+	/**
+	 * Получить результат запроса из кэша, при отсутствии или устаревании - выполнить запрос.
+	 *
+	 * @param name имя таблицы или метода генератора
+	 * @param sql текст запроса
+	 * @param parameters параметры запроса
+	 * @param loader выполнение запроса
+	 * @return результат запроса; записи результата не должны изменяться
+	 * @throws Exception ошибка выполнения запроса
+	 */
+	RowTable get(String name, String sql, List<Object> parameters, Callable<RowTable> loader) throws Exception {
+		Region region = regions.get(name.toLowerCase(Locale.ROOT));
+		ArrayList<Object> key = new ArrayList<Object>(parameters.size() + 1);
+		key.add(sql);
+		key.addAll(parameters);
+		long generation;
+		synchronized (region) {
+			Entry entry = region.entries.get(key);
+			if (entry != null && entry.expires > System.currentTimeMillis()) {
+				region.hits.increment();
+				return entry.rows;
+			}
+			generation = region.generation;
+		}
+		region.misses.increment();
+		RowTable rows = loader.call();
+		synchronized (region) {
+			// область не очищалась во время выполнения запроса
+			if (region.generation == generation) {
+				region.entries.put(key, new Entry(rows, System.currentTimeMillis() + ttl));
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Очистить область кэша таблицы и области методов генераторов.
+	 *
+	 * @param table имя модифицированной таблицы
+	 */
+	void invalidate(String table) {
+		if (regions.isEmpty()) return;
+		Region region = regions.get(table.toLowerCase(Locale.ROOT));
+		if (region != null) region.clear();
+		for (String name : generators) {
+			regions.get(name).clear();
+		}
+	}
+
+	/**
+	 * Очистить все области кэша
+	 */
+	void invalidateAll() {
+		for (Region region : regions.values()) {
+			region.clear();
+		}
+	}
+
+	/**
+	 * Получить статистику использования кэша.
+	 *
+	 * @return по одной записи на область кэша: имя, число результатов, число попаданий, промахов и вытеснений
+	 */
+	RowTable getStatistics() {
+		ArrayList<Object[]> rows = new ArrayList<Object[]>();
+		for (Map.Entry<String, Region> item : regions.entrySet()) {
+			Region region = item.getValue();
+			int size;
+			synchronized (region) {
+				size = region.entries.size();
+			}
+			rows.add(new Object[] {item.getKey(), size, region.hits.sum(), region.misses.sum(), region.evictions.sum()});
+		}
+		return new RowTable(new String[] {"name", "size", "hits", "misses", "evictions"},
+				new int[] {Types.VARCHAR, Types.INTEGER, Types.BIGINT, Types.BIGINT, Types.BIGINT}, rows);
+	}
+
+}
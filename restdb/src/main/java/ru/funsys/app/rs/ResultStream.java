@@ -0,0 +1,194 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.List;
+
+import javax.sql.DataSource;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.StreamingOutput;
+
+/**
+ * Потоковая выдача результата запроса SELECT. Запрос выполняется при создании экземпляра класса,
+ * поэтому ошибки SQL возвращаются клиенту до начала записи тела ответа. Записи выбираются из курсора
+ * порциями размером {@code fetchSize} и сразу пишутся в тело ответа, объем используемой памяти
+ * не зависит от числа выбранных записей.
+ *
+ * <p>
+ * Для PostgreSQL выборка курсором возможна только вне режима автоматической фиксации транзакций,
+ * поэтому на время выдачи результата этот режим отключается.
+ *
+ * <p>
+ * Соединение возвращается в пул по завершении записи тела ответа. Если тело ответа не записывается
+ * (ответ уже отправлен по истечении времени ожидания или клиент отключился), соединение освобождается
+ * методом {@link #close()}.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class ResultStream implements StreamingOutput, Closeable {
+
+	private Connection connection;
+
+	private boolean autoCommit;
+
+	private PreparedStatement statement;
+
+	private ResultSet result;
+
+	/**
+	 * Тип данных ответа
+	 */
+	private MediaType type;
+
+	/**
+	 * Формат вывода значений типа {@code Timestamp}
+	 */
+	private String pattern;
+
+	/**
+	 * Признак табличного формата выдачи (см. {@link RowWriter})
+	 */
+	private boolean columnar;
+
+	/**
+	 * Число записанных записей
+	 */
+	private long total;
+
+	/**
+	 * Выполнить запрос SELECT.
+	 *
+	 * @param dataSource источник данных
+	 * @param sql запрос
+	 * @param parameters параметры запроса
+	 * @param fetchSize число записей, получаемых из БД за одно обращение
+	 * @param timeout время выполнения запроса в секундах, 0 - не ограничено
+	 * @param type тип данных ответа
+	 * @param pattern формат вывода значений типа {@code Timestamp}
+	 * @param columnar признак табличного формата выдачи
+	 * @throws SQLException ошибка выполнения запроса
+	 */
+	ResultStream(DataSource dataSource, String sql, List<Object> parameters, int fetchSize, int timeout, MediaType type, String pattern, boolean columnar) throws SQLException {
+		this.type = type;
+		this.pattern = pattern;
+		this.columnar = columnar;
+		connection = dataSource.getConnection();
+		try {
+			autoCommit = connection.getAutoCommit();
+			if (autoCommit) connection.setAutoCommit(false);
+			statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+			statement.setFetchSize(fetchSize);
+			if (timeout > 0) statement.setQueryTimeout(timeout);
+			for (int index = 0; index < parameters.size(); index++) {
+				statement.setObject(index + 1, parameters.get(index));
+			}
+			result = statement.executeQuery();
+		} catch (SQLException e) {
+			close();
+			throw e;
+		}
+	}
+
+	@Override
+	public void write(OutputStream output) throws IOException {
+		try {
+			RowWriter writer = RowWriter.getInstance(type, output, pattern);
+			ResultSetMetaData metadata = result.getMetaData();
+			int count = metadata.getColumnCount();
+			String[] names = new String[count];
+			for (int column = 0; column < count; column++) {
+				names[column] = metadata.getColumnName(column + 1);
+			}
+			int fetchSize = statement.getFetchSize();
+			int rows = 0;
+			if (columnar) {
+				writer.startTable(names);
+			} else {
+				writer.startRows();
+			}
+			while (result.next()) {
+				if (columnar) {
+					writer.startValues();
+					for (int column = 0; column < count; column++) {
+						writer.value(result.getObject(column + 1));
+					}
+					writer.endValues();
+				} else {
+					writer.startRow();
+					for (int column = 0; column < count; column++) {
+						writer.field(names[column], result.getObject(column + 1));
+					}
+					writer.endRow();
+				}
+				total++;
+				if (++rows == fetchSize) {
+					// отдать клиенту очередную порцию записей
+					writer.flush();
+					rows = 0;
+				}
+			}
+			if (columnar) {
+				writer.endTable();
+			} else {
+				writer.endRows();
+			}
+		} catch (SQLException e) {
+			// заголовок ответа уже отправлен, прервать передачу тела ответа
+			throw new IOException(e);
+		} finally {
+			close();
+		}
+	}
+
+	/**
+	 * Получить число записей, записанных в тело ответа.
+	 *
+	 * @return число записей
+	 */
+	long getRows() {
+		return total;
+	}
+
+	/**
+	 * Освободить ресурсы и вернуть соединение в пул. Повторный вызов не выполняет действий.
+	 */
+	@Override
+	public synchronized void close() {
+		if (connection == null) return;
+		try {
+			if (result != null) result.close();
+		} catch (SQLException e) {
+			// Подавить исключение
+		}
+		try {
+			if (statement != null) statement.close();
+		} catch (SQLException e) {
+			// Подавить исключение
+		}
+		try {
+			if (autoCommit) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+		} catch (SQLException e) {
+			// Подавить исключение
+		}
+		try {
+			connection.close();
+		} catch (SQLException e) {
+			// Подавить исключение
+		}
+		connection = null;
+	}
+
+}
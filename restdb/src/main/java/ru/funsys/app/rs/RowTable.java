@@ -0,0 +1,182 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Результат выполнения запроса SELECT в компактном представлении: имена и типы полей определяются
+ * один раз для всего {@code ResultSet}, каждая запись хранится массивом значений полей.
+ *
+ * <p>
+ * Выдача результата в теле ответа выполняется провайдером {@code ru.funsys.app.rs.provider.RowTableWriter}
+ * либо в виде массива объектов (формат по умолчанию, совместимый с прежним форматом ответа), либо в табличном
+ * формате {@code {"columns":[...],"rows":[[...],...]}} (см. {@link RowWriter}).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public class RowTable {
+
+	/**
+	 * Имена полей
+	 */
+	private String[] columns;
+
+	/**
+	 * Типы полей {@link java.sql.Types}
+	 */
+	private int[] types;
+
+	/**
+	 * Записи
+	 */
+	private List<Object[]> rows;
+
+	/**
+	 * Признак табличного формата выдачи
+	 */
+	private boolean columnar;
+
+	/**
+	 * Признак усечения результата до максимального числа записей
+	 */
+	private boolean truncated;
+
+	public RowTable(String[] columns, int[] types, List<Object[]> rows) {
+		super();
+		this.columns = columns;
+		this.types = types;
+		this.rows = rows;
+	}
+
+	/**
+	 * Прочитать все записи {@code ResultSet}.
+	 *
+	 * @param result результат выполнения SQL запроса
+	 * @throws SQLException ошибка чтения записей
+	 */
+	public RowTable(ResultSet result) throws SQLException {
+		this(result, 0);
+	}
+
+	/**
+	 * Прочитать не более {@code maxRows} записей {@code ResultSet}. Если записей больше, устанавливается
+	 * признак усечения результата.
+	 *
+	 * @param result результат выполнения SQL запроса
+	 * @param maxRows максимальное число записей, 0 - не ограничено
+	 * @throws SQLException ошибка чтения записей
+	 */
+	public RowTable(ResultSet result, int maxRows) throws SQLException {
+		super();
+		ResultSetMetaData metadata = result.getMetaData();
+		int count = metadata.getColumnCount();
+		columns = new String[count];
+		types = new int[count];
+		for (int column = 0; column < count; column++) {
+			columns[column] = metadata.getColumnName(column + 1);
+			types[column] = metadata.getColumnType(column + 1);
+		}
+		rows = new ArrayList<Object[]>();
+		while (result.next()) {
+			if (maxRows > 0 && rows.size() == maxRows) {
+				truncated = true;
+				break;
+			}
+			Object[] row = new Object[count];
+			for (int column = 0; column < count; column++) {
+				row[column] = result.getObject(column + 1);
+			}
+			rows.add(row);
+		}
+	}
+
+	public String[] getColumns() {
+		return columns;
+	}
+
+	public int[] getTypes() {
+		return types;
+	}
+
+	public List<Object[]> getRows() {
+		return rows;
+	}
+
+	public int size() {
+		return rows.size();
+	}
+
+	public boolean isColumnar() {
+		return columnar;
+	}
+
+	public void setColumnar(boolean columnar) {
+		this.columnar = columnar;
+	}
+
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	public void setTruncated(boolean truncated) {
+		this.truncated = truncated;
+	}
+
+	/**
+	 * Преобразовать записи в список объектов, каждая запись - отдельный {@code HashMap}.
+	 *
+	 * @return список записей
+	 */
+	public ArrayList<HashMap<String, Object>> toArrayList() {
+		ArrayList<HashMap<String, Object>> list = new ArrayList<HashMap<String, Object>>(rows.size());
+		int capacity = columns.length * 4 / 3 + 1;
+		for (Object[] row : rows) {
+			HashMap<String, Object> record = new HashMap<String, Object>(capacity);
+			for (int column = 0; column < columns.length; column++) {
+				record.put(columns[column], row[column]);
+			}
+			list.add(record);
+		}
+		return list;
+	}
+
+	/**
+	 * Записать записи в тело ответа.
+	 *
+	 * @param writer экземпляр класса записи
+	 * @throws IOException ошибка записи
+	 */
+	public void write(RowWriter writer) throws IOException {
+		if (columnar) {
+			writer.startTable(columns);
+			for (Object[] row : rows) {
+				writer.startValues();
+				for (int column = 0; column < columns.length; column++) {
+					writer.value(row[column]);
+				}
+				writer.endValues();
+			}
+			writer.endTable();
+		} else {
+			writer.startRows();
+			for (Object[] row : rows) {
+				writer.startRow();
+				for (int column = 0; column < columns.length; column++) {
+					writer.field(columns[column], row[column]);
+				}
+				writer.endRow();
+			}
+			writer.endRows();
+		}
+	}
+
+}
@@ -0,0 +1,430 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.text.SimpleDateFormat;
+import java.util.Base64;
+
+import javax.ws.rs.core.MediaType;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Последовательная запись записей результата запроса в тело HTTP ответа. Записи пишутся в поток
+ * по мере их получения, в памяти не накапливаются.
+ *
+ * <p>
+ * Формат JSON - массив объектов, формат XML совпадает с форматом тела запроса
+ * <pre>
+ * &lt;rows&gt;
+ *   &lt;row&gt;
+ *     &lt;field name="st_id"&gt;42&lt;/field&gt;
+ *     &lt;field name="st_name"&gt;Test42&lt;/field&gt;
+ *   &lt;/row&gt;
+ * &lt;/rows&gt;
+ * </pre>
+ *
+ * <p>
+ * Табличный (columnar) формат выдачи содержит список имен полей и список записей в виде массивов значений.
+ * Пример в формате JSON
+ * <pre>
+ * {"columns":["st_id","st_name"],"rows":[[42,"Test42"],[43,"Test43"]]}
+ * </pre>
+ * Пример в формате XML, значение NULL - элемент {@code value} с атрибутом {@code null="true"}
+ * <pre>
+ * &lt;table&gt;
+ *   &lt;columns&gt;
+ *     &lt;column&gt;st_id&lt;/column&gt;
+ *     &lt;column&gt;st_name&lt;/column&gt;
+ *   &lt;/columns&gt;
+ *   &lt;rows&gt;
+ *     &lt;row&gt;&lt;value&gt;42&lt;/value&gt;&lt;value&gt;Test42&lt;/value&gt;&lt;/row&gt;
+ *   &lt;/rows&gt;
+ * &lt;/table&gt;
+ * </pre>
+ *
+ * @author Валерий Лиховских
+ *
+ */
+public abstract class RowWriter {
+
+	/**
+	 * Фабрика генераторов JSON
+	 */
+	private static final JsonFactory JSON = new ObjectMapper().getFactory().disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+	/**
+	 * Фабрика генераторов XML
+	 */
+	private static final XMLOutputFactory XML = XMLOutputFactory.newInstance();
+
+	/**
+	 * Формат вывода значений типа {@code Timestamp}, {@code null} - формат по умолчанию
+	 */
+	private SimpleDateFormat timestamp;
+
+	protected RowWriter(String pattern) {
+		if (pattern != null) timestamp = new SimpleDateFormat(pattern);
+	}
+
+	/**
+	 * Создать экземпляр класса записи для типа данных ответа.
+	 *
+	 * @param type тип данных ответа, application/json или application/xml
+	 * @param out поток тела ответа
+	 * @param pattern формат вывода значений типа {@code Timestamp}
+	 * @return экземпляр класса записи
+	 * @throws IOException ошибка создания
+	 */
+	public static RowWriter getInstance(MediaType type, OutputStream out, String pattern) throws IOException {
+		if (MediaType.APPLICATION_XML_TYPE.isCompatible(type)) {
+			try {
+				return new Xml(XML.createXMLStreamWriter(out, "UTF-8"), pattern);
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+		return new Json(JSON.createGenerator(out, JsonEncoding.UTF8), pattern);
+	}
+
+	/**
+	 * Начать список записей
+	 */
+	public abstract void startRows() throws IOException;
+
+	/**
+	 * Начать запись
+	 */
+	public abstract void startRow() throws IOException;
+
+	/**
+	 * Записать значение поля записи
+	 *
+	 * @param name имя поля
+	 * @param value значение поля
+	 */
+	public abstract void field(String name, Object value) throws IOException;
+
+	/**
+	 * Завершить запись
+	 */
+	public abstract void endRow() throws IOException;
+
+	/**
+	 * Завершить список записей и вытолкнуть буферизованные данные в поток. Поток тела ответа не закрывается.
+	 */
+	public abstract void endRows() throws IOException;
+
+	/**
+	 * Начать табличный формат выдачи: записать список имен полей и начать список записей
+	 *
+	 * @param columns имена полей
+	 */
+	public abstract void startTable(String[] columns) throws IOException;
+
+	/**
+	 * Начать запись табличного формата
+	 */
+	public abstract void startValues() throws IOException;
+
+	/**
+	 * Записать значение поля записи табличного формата
+	 *
+	 * @param value значение поля
+	 */
+	public abstract void value(Object value) throws IOException;
+
+	/**
+	 * Завершить запись табличного формата
+	 */
+	public abstract void endValues() throws IOException;
+
+	/**
+	 * Завершить табличный формат выдачи и вытолкнуть буферизованные данные в поток
+	 */
+	public abstract void endTable() throws IOException;
+
+	/**
+	 * Вытолкнуть буферизованные данные в поток
+	 */
+	public abstract void flush() throws IOException;
+
+	/**
+	 * Привести значение, полученное из {@code ResultSet}, к виду, пригодному для записи.
+	 *
+	 * @param value значение поля
+	 * @return значение для записи
+	 */
+	protected Object toValue(Object value) throws IOException {
+		try {
+			if (value instanceof Timestamp) {
+				if (timestamp != null) return timestamp.format(value);
+			} else if (value instanceof Array) {
+				return ((Array) value).getArray();
+			} else if (value instanceof Clob) {
+				Clob clob = (Clob) value;
+				return clob.getSubString(1, (int) clob.length());
+			} else if (value instanceof Blob) {
+				Blob blob = (Blob) value;
+				return blob.getBytes(1, (int) blob.length());
+			}
+		} catch (SQLException e) {
+			throw new IOException(e);
+		}
+		return value;
+	}
+
+	/**
+	 * Запись в формате JSON
+	 */
+	private static class Json extends RowWriter {
+
+		private JsonGenerator generator;
+
+		private Json(JsonGenerator generator, String pattern) {
+			super(pattern);
+			this.generator = generator;
+		}
+
+		@Override
+		public void startRows() throws IOException {
+			generator.writeStartArray();
+		}
+
+		@Override
+		public void startRow() throws IOException {
+			generator.writeStartObject();
+		}
+
+		@Override
+		public void field(String name, Object value) throws IOException {
+			generator.writeFieldName(name);
+			value(value);
+		}
+
+		@Override
+		public void value(Object value) throws IOException {
+			value = toValue(value);
+			if (value == null || value instanceof Number || value instanceof String || value instanceof Boolean
+					|| value instanceof byte[] || value instanceof Object[] || value instanceof java.util.Date) {
+				generator.writeObject(value);
+			} else {
+				// значения типов драйвера БД (например, org.postgresql.util.PGobject)
+				generator.writeString(value.toString());
+			}
+		}
+
+		@Override
+		public void startTable(String[] columns) throws IOException {
+			generator.writeStartObject();
+			generator.writeFieldName("columns");
+			generator.writeStartArray();
+			for (String column : columns) {
+				generator.writeString(column);
+			}
+			generator.writeEndArray();
+			generator.writeFieldName("rows");
+			generator.writeStartArray();
+		}
+
+		@Override
+		public void startValues() throws IOException {
+			generator.writeStartArray();
+		}
+
+		@Override
+		public void endValues() throws IOException {
+			generator.writeEndArray();
+		}
+
+		@Override
+		public void endTable() throws IOException {
+			generator.writeEndArray();
+			generator.writeEndObject();
+			generator.flush();
+		}
+
+		@Override
+		public void endRow() throws IOException {
+			generator.writeEndObject();
+		}
+
+		@Override
+		public void endRows() throws IOException {
+			generator.writeEndArray();
+			generator.flush();
+		}
+
+		@Override
+		public void flush() throws IOException {
+			generator.flush();
+		}
+
+	}
+
+	/**
+	 * Запись в формате XML
+	 */
+	private static class Xml extends RowWriter {
+
+		private XMLStreamWriter writer;
+
+		private Xml(XMLStreamWriter writer, String pattern) {
+			super(pattern);
+			this.writer = writer;
+		}
+
+		@Override
+		public void startRows() throws IOException {
+			try {
+				writer.writeStartDocument("UTF-8", "1.0");
+				writer.writeStartElement("rows");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void startRow() throws IOException {
+			try {
+				writer.writeStartElement("row");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void field(String name, Object value) throws IOException {
+			value = toValue(value);
+			if (value == null) return; // отсутствие элемента field - значение NULL
+			try {
+				writer.writeStartElement("field");
+				writer.writeAttribute("name", name);
+				writer.writeCharacters(toString(value));
+				writer.writeEndElement();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void startTable(String[] columns) throws IOException {
+			try {
+				writer.writeStartDocument("UTF-8", "1.0");
+				writer.writeStartElement("table");
+				writer.writeStartElement("columns");
+				for (String column : columns) {
+					writer.writeStartElement("column");
+					writer.writeCharacters(column);
+					writer.writeEndElement();
+				}
+				writer.writeEndElement();
+				writer.writeStartElement("rows");
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void startValues() throws IOException {
+			startRow();
+		}
+
+		@Override
+		public void value(Object value) throws IOException {
+			value = toValue(value);
+			try {
+				if (value == null) {
+					writer.writeEmptyElement("value");
+					writer.writeAttribute("null", "true");
+				} else {
+					writer.writeStartElement("value");
+					writer.writeCharacters(toString(value));
+					writer.writeEndElement();
+				}
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void endValues() throws IOException {
+			endRow();
+		}
+
+		@Override
+		public void endTable() throws IOException {
+			try {
+				writer.writeEndElement();
+				writer.writeEndElement();
+				writer.writeEndDocument();
+				writer.flush();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		private String toString(Object value) {
+			if (value instanceof byte[]) return Base64.getEncoder().encodeToString((byte[]) value);
+			if (value instanceof Object[]) {
+				StringBuilder builder = new StringBuilder("{");
+				boolean secondary = false;
+				for (Object item : (Object[]) value) {
+					if (secondary) {
+						builder.append(',');
+					} else {
+						secondary = true;
+					}
+					builder.append(item);
+				}
+				return builder.append('}').toString();
+			}
+			return value.toString();
+		}
+
+		@Override
+		public void endRow() throws IOException {
+			try {
+				writer.writeEndElement();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void endRows() throws IOException {
+			try {
+				writer.writeEndElement();
+				writer.writeEndDocument();
+				writer.flush();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+		@Override
+		public void flush() throws IOException {
+			try {
+				writer.flush();
+			} catch (XMLStreamException e) {
+				throw new IOException(e);
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,80 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Ограниченный по размеру кэш текстов SQL запросов. Ключ кэша - форма запроса: операция, имя таблицы,
+ * имена полей и число значений каждого поля в порядке связывания параметров. Для одной и той же формы
+ * запроса всегда возвращается один и тот же текст запроса, что позволяет драйверу JDBC и СУБД повторно
+ * использовать подготовленные на сервере запросы. При превышении размера вытесняется запрос, не
+ * использовавшийся дольше других.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class SqlCache {
+
+	private final LinkedHashMap<String, String> entries;
+
+	/**
+	 * Создать кэш.
+	 *
+	 * @param capacity максимальное число запросов в кэше, 0 - кэш отключен
+	 */
+	SqlCache(int capacity) {
+		super();
+		if (capacity > 0) {
+			entries = new LinkedHashMap<String, String>(16, 0.75f, true) {
+
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+					return size() > capacity;
+				}
+
+			};
+		} else {
+			entries = null;
+		}
+	}
+
+	/**
+	 * Получить текст запроса по форме запроса, при отсутствии в кэше - сформировать.
+	 *
+	 * @param key форма запроса
+	 * @param builder формирование текста запроса
+	 * @return текст запроса
+	 */
+	String get(String key, Supplier<String> builder) {
+		if (entries == null) return builder.get();
+		synchronized (entries) {
+			String sql = entries.get(key);
+			if (sql != null) return sql;
+		}
+		// формирование запроса выполняется вне блокировки
+		String sql = builder.get();
+		synchronized (entries) {
+			String previous = entries.putIfAbsent(key, sql);
+			return previous == null ? sql : previous;
+		}
+	}
+
+	/**
+	 * Получить число запросов в кэше.
+	 *
+	 * @return число запросов
+	 */
+	int size() {
+		if (entries == null) return 0;
+		synchronized (entries) {
+			return entries.size();
+		}
+	}
+
+}
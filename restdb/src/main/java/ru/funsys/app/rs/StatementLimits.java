@@ -0,0 +1,90 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Ограничения выполнения SQL запросов SELECT: время выполнения запроса и максимальное число записей результата.
+ * Ограничения определяются глобально и могут быть переопределены для таблицы или метода генератора SQL запросов,
+ * а также для префикса имени (схемы таблицы или класса генератора). Поиск ограничения выполняется по полному
+ * имени, затем по префиксу имени, иначе используется глобальное значение.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class StatementLimits {
+
+	/**
+	 * Время выполнения запроса в секундах по умолчанию, 0 - не ограничено
+	 */
+	private final int timeout;
+
+	/**
+	 * Максимальное число записей результата по умолчанию, 0 - не ограничено
+	 */
+	private final int maxRows;
+
+	private final HashMap<String, Integer> timeouts;
+
+	private final HashMap<String, Integer> rows;
+
+	/**
+	 * Создать ограничения.
+	 *
+	 * @param timeout время выполнения запроса в секундах по умолчанию
+	 * @param maxRows максимальное число записей результата по умолчанию
+	 * @param timeouts время выполнения запроса для отдельных имен
+	 * @param rows максимальное число записей для отдельных имен
+	 */
+	StatementLimits(int timeout, int maxRows, Map<String, Integer> timeouts, Map<String, Integer> rows) {
+		super();
+		this.timeout = timeout;
+		this.maxRows = maxRows;
+		this.timeouts = toLowerCase(timeouts);
+		this.rows = toLowerCase(rows);
+	}
+
+	/**
+	 * Получить время выполнения запроса.
+	 *
+	 * @param name имя таблицы или метода генератора ({@code Class.method})
+	 * @return время выполнения запроса в секундах, 0 - не ограничено
+	 */
+	int getTimeout(String name) {
+		return get(timeouts, name, timeout);
+	}
+
+	/**
+	 * Получить максимальное число записей результата.
+	 *
+	 * @param name имя таблицы или метода генератора ({@code Class.method})
+	 * @return максимальное число записей, 0 - не ограничено
+	 */
+	int getMaxRows(String name) {
+		return get(rows, name, maxRows);
+	}
+
+	private static int get(HashMap<String, Integer> limits, String name, int value) {
+		if (name == null || limits.isEmpty()) return value;
+		name = name.toLowerCase(Locale.ROOT);
+		Integer limit = limits.get(name);
+		if (limit == null) {
+			int pos = name.lastIndexOf('.');
+			if (pos > 0) limit = limits.get(name.substring(0, pos));
+		}
+		return limit == null ? value : limit;
+	}
+
+	private static HashMap<String, Integer> toLowerCase(Map<String, Integer> limits) {
+		HashMap<String, Integer> result = new HashMap<String, Integer>();
+		for (Map.Entry<String, Integer> entry : limits.entrySet()) {
+			result.put(entry.getKey().toLowerCase(Locale.ROOT), entry.getValue());
+		}
+		return result;
+	}
+
+}
@@ -0,0 +1,50 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.ArrayList;
+
+/**
+ * Метаданные таблицы БД: поля первичного ключа, имена и типы полей таблицы.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class TableMetadata {
+
+	/**
+	 * Поля первичного ключа
+	 */
+	private ArrayList<String> key;
+
+	/**
+	 * Имена полей таблицы
+	 */
+	private ArrayList<String> columns;
+
+	/**
+	 * Типы полей таблицы {@link java.sql.Types}
+	 */
+	private int[] types;
+
+	TableMetadata(ArrayList<String> key, ArrayList<String> columns, int[] types) {
+		super();
+		this.key = key;
+		this.columns = columns;
+		this.types = types;
+	}
+
+	ArrayList<String> getKey() {
+		return key;
+	}
+
+	ArrayList<String> getColumns() {
+		return columns;
+	}
+
+	int[] getTypes() {
+		return types;
+	}
+
+}
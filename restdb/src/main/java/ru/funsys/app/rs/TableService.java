@@ -3,24 +3,67 @@
  */
 package ru.funsys.app.rs;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodType;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import javax.sql.DataSource;
 import javax.ws.rs.BeanParam;
+import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.GenericEntity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
 import ru.funsys.avalanche.Application;
 import ru.funsys.avalanche.rs.RestException;
@@ -57,6 +100,16 @@ public class TableService extends Application {
 	 */
 	private static final long serialVersionUID = 3169692529838007775L;
 
+	/**
+	 * Преобразователь ключа продолжения постраничной выборки 
+	 */
+	private static final ObjectMapper MAPPER = new ObjectMapper();
+
+	/**
+	 * Журнал медленных запросов 
+	 */
+	private static final Logger SLOW = LogManager.getLogger(TableService.class.getName() + ".slow");
+
 	/**
 	 * Параметр класса.
 	 */
@@ -85,11 +138,256 @@ public class TableService extends Application {
 	 */
 	private String defaultSchema;
 	
+	/**
+	 * Параметр класса.
+	 * 
+	 * JNDI имя источника данных БД, например, {@code java:/comp/env/jdbc/db}. Источник данных используется
+	 * для непосредственной работы с соединениями JDBC (потоковая выдача результата запроса).
+	 */
+	private String resource;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Флаг потоковой выдачи результата запросов SELECT в методах {@code get} и {@code select}. Записи
+	 * выбираются из курсора и пишутся в тело ответа по мере получения, без накопления в памяти.
+	 * Результат с ограниченным числом записей (параметры {@code maxRows}, {@code maxRowsLimits}) потоком
+	 * не выдается. Требует определения параметра {@code resource}. По умолчанию - {@code false}
+	 */
+	private boolean streaming = false;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Число записей, получаемых из БД за одно обращение при потоковой выдаче результата запроса.
+	 * По умолчанию - 1000
+	 */
+	private int fetchSize = 1000;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальный размер страницы постраничной выборки в методе {@code get}, используется также как размер
+	 * страницы, если параметр {@code $limit} не определен. По умолчанию - 1000
+	 */
+	private int maxLimit = 1000;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Число наборов параметров, передаваемых в БД за одно обращение при пакетном выполнении запросов.
+	 * По умолчанию - 1000
+	 */
+	private int batchSize = 1000;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Время жизни метаданных таблиц (поля первичного ключа, имена и типы полей) в кэше в секундах,
+	 * 0 - метаданные не устаревают. По умолчанию - 0
+	 */
+	private int metadataTtl = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число текстов SQL запросов в кэше запросов, 0 - кэш отключен. По умолчанию - 1000
+	 */
+	private int sqlCacheSize = 1000;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Список таблиц, результаты запросов SELECT которых сохраняются в кэше результатов, разделитель - символ ';'.
+	 * Рекомендуется для редко изменяемых таблиц-справочников. Модификация таблицы методами сервиса очищает
+	 * кэш результатов таблицы. По умолчанию кэш результатов не используется
+	 */
+	private String cacheTables;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Список методов генераторов SQL запросов ({@code Class.method}), результаты которых сохраняются в кэше
+	 * результатов, разделитель - символ ';'. Кэш результатов методов генераторов очищается при любой модификации
+	 * таблиц методами сервиса
+	 */
+	private String cacheQueries;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число результатов запросов в кэше результатов для одной таблицы или метода генератора.
+	 * По умолчанию - 1000
+	 */
+	private int cacheSize = 1000;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Время жизни результата запроса в кэше результатов в секундах. По умолчанию - 60
+	 */
+	private int cacheTtl = 60;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Способ формирования тега сущности (заголовок ETag) ответов методов {@code get} и {@code select}
+	 * для поддержки условных запросов (заголовок If-None-Match, ответ 304):
+	 * <ul>
+	 * <li>{@code none} - тег не формируется (по умолчанию)
+	 * <li>{@code hash} - хэш тела ответа; запрос к БД выполняется, экономится передача тела ответа.
+	 * При потоковой выдаче результата тег не формируется
+	 * <li>{@code version} - версия таблицы, увеличиваемая при модификации таблицы методами сервиса; при
+	 * совпадении тега запрос к БД не выполняется. Допустим, только если таблицы модифицируются исключительно
+	 * методами сервиса
+	 * </ul>
+	 */
+	private String etag = "none";
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Флаг объединения одновременно выполняемых одинаковых запросов SELECT: запрос с тем же текстом и теми же
+	 * значениями параметров, что и выполняемый запрос, ожидает его результата и не занимает соединение с БД.
+	 * Не применяется при потоковой выдаче результата. По умолчанию - {@code false}
+	 * 
+	 * <p>
+	 * Объединенный запрос может получить результат запроса, начатого до фиксации модификации, выполненной
+	 * тем же клиентом (устаревшее чтение, нарушение read-your-writes), поэтому объединение следует включать
+	 * только для данных, допускающих такое устаревание.
+	 */
+	private boolean coalesce = false;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число одновременно выполняемых методов сервиса, работающих с БД, вне потоков контейнера
+	 * сервлетов (см. {@link AsyncExecutor}). Значение 0 - методы выполняются в потоке контейнера сервлетов.
+	 * По умолчанию - 0
+	 */
+	private int asyncThreads = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное время ожидания результата метода сервиса в секундах при выполнении вне потоков контейнера
+	 * сервлетов, по истечении возвращается код ответа 503. Значение 0 - время не ограничено. По умолчанию - 0
+	 */
+	private int asyncTimeout = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число методов сервиса, ожидающих выполнения при определенном параметре {@code asyncThreads}.
+	 * Метод сверх этого числа сразу отклоняется с кодом ответа 503. По умолчанию - 1000
+	 */
+	private int asyncQueue = 1000;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число одновременно выполняемых запросов к одной таблице (классу генератора SQL запросов),
+	 * запросы сверх ограничения отклоняются с кодом ответа 503. Значение 0 - не ограничено. По умолчанию - 0
+	 */
+	private int tableLimit = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Ограничения числа одновременно выполняемых запросов для отдельных таблиц (классов генераторов SQL
+	 * запросов), заменяющие значение параметра {@code tableLimit}. Формат - {@code имя=число;...}, например,
+	 * {@code rp.users=4;TestQuery=2}
+	 */
+	private String tableLimits;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Ограничения числа одновременно выполняемых запросов для групп методов сервиса {@code table}, {@code query}
+	 * и {@code info}. Формат - {@code группа=число;...}, например, {@code table=40;query=10;info=2}
+	 */
+	private String endpointLimits;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное время выполнения SQL запроса SELECT в секундах, по истечении выполнение запроса прерывается.
+	 * Применяется при определенном параметре {@code resource}: запрос с ограничением времени выполняется
+	 * непосредственно через JDBC. Значение 0 - не ограничено. По умолчанию - 0
+	 */
+	private int queryTimeout = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число записей результата SQL запроса SELECT. Усеченный результат отмечается заголовком ответа
+	 * {@code X-Truncated: true}. Значение 0 - не ограничено. По умолчанию - 0
+	 */
+	private int maxRows = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Время обработки запроса в миллисекундах, начиная с которого запрос записывается в журнал медленных
+	 * запросов (журнал {@code ru.funsys.app.rs.TableService.slow}) с временем этапов обработки, текстом
+	 * SQL запроса и числом его параметров. Значение 0 - журнал не ведется. По умолчанию - 0
+	 */
+	private int slowQuery = 0;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Время выполнения SQL запросов для отдельных таблиц, схем, методов генераторов или классов генераторов,
+	 * заменяющее значение параметра {@code queryTimeout}. Формат - {@code имя=число;...}, например,
+	 * {@code rp.users=5;TestQuery=30}
+	 */
+	private String queryTimeouts;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Максимальное число записей для отдельных таблиц, схем, методов генераторов или классов генераторов,
+	 * заменяющее значение параметра {@code maxRows}. Формат - {@code имя=число;...}
+	 */
+	private String maxRowsLimits;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Список таблиц, метаданные которых загружаются при прогреве сервиса, разделитель - символ ';'. Элемент
+	 * списка - полное имя таблицы или шаблон {@code schema.*} (все таблицы схемы), допускаются шаблоны
+	 * метода {@code DatabaseMetaData.getTables}, например, {@code rp.us%}
+	 */
+	private String warmupTables;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Список имен классов генераторов SQL запросов, загружаемых при прогреве сервиса, разделитель - символ ';'
+	 */
+	private String warmupGenerators;
+	
+	/**
+	 * Параметр класса.
+	 * 
+	 * Число потоков прогрева сервиса. По умолчанию - 4
+	 */
+	private int warmupThreads = 4;
+	
+	/**
+	 * Источник данных БД, определяемый параметром {@code resource} 
+	 */
+	private transient DataSource dataSource;
+	
+	/**
+	 * Кэш метаданных таблиц 
+	 */
+	private transient MetadataCache metadata = new MetadataCache(this::loadMetadata); 
 	
 	/**
-	 * Списки полей первичных ключей для таблиц 
+	 * Прогрев сервиса, {@code null} - прогрев не начат 
 	 */
-	private HashMap<String, ArrayList<String>> primary = new HashMap<String, ArrayList<String>>(); 
+	private transient volatile CompletableFuture<Integer> warmup; 
 	
 	/**
 	 * Список пакетов поиска классов генераторов SQL запросов 
@@ -97,9 +395,54 @@ public class TableService extends Application {
 	private ArrayList<String> packages = new ArrayList<String>(); 
 	
 	/**
-	 * Именованный список классов генераторов SQL запросов 
+	 * Реестр классов генераторов SQL запросов 
+	 */
+	private transient GeneratorRegistry generators = new GeneratorRegistry(packages); 
+	
+	/**
+	 * Кэш текстов SQL запросов, создается при первом обращении 
+	 */
+	private transient volatile SqlCache sqlCache; 
+	
+	/**
+	 * Кэш результатов запросов, создается при первом обращении 
+	 */
+	private transient volatile ResultCache results; 
+	
+	/**
+	 * Версии таблиц для формирования тегов сущностей ответов 
+	 */
+	private transient TableVersions versions = new TableVersions(); 
+	
+	/**
+	 * Объединение одновременно выполняемых одинаковых запросов 
+	 */
+	private transient QueryCoalescer coalescer = new QueryCoalescer(); 
+	
+	/**
+	 * Исполнитель методов сервиса, создается при первом обращении 
+	 */
+	private transient volatile AsyncExecutor executor; 
+	
+	/**
+	 * Признак остановки сервиса, после остановки методы выполняются в потоке контейнера сервлетов 
+	 */
+	private transient volatile boolean stopped; 
+	
+	/**
+	 * Ограничения числа одновременно выполняемых запросов, создаются при первом обращении 
+	 */
+	private transient volatile AdmissionControl admission; 
+	
+	/**
+	 * Ограничения выполнения SQL запросов SELECT, создаются при первом обращении 
 	 */
-	private HashMap<String, Object> generators = new HashMap<String, Object>(); 
+	private transient volatile StatementLimits statementLimits; 
+	
+	/**
+	 * Метрики методов сервиса 
+	 */
+	private transient Metrics metrics = new Metrics(); 
 
 	public void setPackages(String packages) {
 		String[] list = packages.split(";");
@@ -108,6 +451,18 @@ public class TableService extends Application {
 		}
 	}
 	
+	/**
+	 * Асинхронное выполнение метода {@link #get(BeanRequest)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param response асинхронный ответ
+	 */
+	@GET
+	@Path("table/{object}")
+	public void get(@BeanParam BeanRequest bean, @Suspended AsyncResponse response) {
+		async(response, bean, "get", getTable(bean.getObject()), () -> get(bean));
+	}
+	
 	/**
 	 * Получить одну или более записи таблицы.
 	 * 
@@ -135,6 +490,42 @@ public class TableService extends Application {
 	 * [{"st_id":42,"st_name":"Test42"},{"st_id":43,"st_name":"Test43"}]
 	 * </pre>
 	 * 
+	 * При установленном параметре {@code streaming} записи выдаются потоком по мере их выборки из БД.
+	 * 
+	 * <p>
+	 * Зарезервированный параметр {@code $shape=columnar} определяет табличный формат ответа, в котором имена
+	 * полей передаются один раз
+	 * <pre>
+	 * {"columns":["st_id","st_name"],"rows":[[42,"Test42"],[43,"Test43"]]}
+	 * </pre>
+	 * 
+	 * <p>
+	 * Постраничная выборка определяется зарезервированными параметрами:
+	 * <ul>
+	 * <li>{@code $limit} - размер страницы, не более значения параметра класса {@code maxLimit};
+	 * <li>{@code $after} - ключ продолжения, выдача записей, следующих по первичному ключу таблицы за последней
+	 * записью предыдущей страницы. Стоимость получения страницы не зависит от ее номера;
+	 * <li>{@code $offset} - число пропускаемых записей (LIMIT/OFFSET), не совместим с {@code $after}.
+	 * </ul>
+	 * Записи страницы упорядочены по первичному ключу таблицы. При определении параметра {@code $order} записи
+	 * упорядочены по указанным полям и далее по первичному ключу, следующая страница определяется параметром
+	 * {@code $offset}. Если за страницей следуют записи, в ответ включается
+	 * заголовок {@code Link} со ссылкой на следующую страницу. Для постраничной выборки не действует запрет
+	 * параметра {@code disableAll}, результат выдается без потоковой передачи.
+	 * <pre>
+	 * .../data/table/rp.users?$limit=100
+	 * Link: &lt;.../data/table/rp.users?$limit=100&amp;$after=WyLQmNCy0LDQvSIsItCY0LLQsNC90L7QsiJd&gt;; rel="next"
+	 * </pre>
+	 * 
+	 * <p>
+	 * Выбираемые поля и порядок записей определяются зарезервированными параметрами {@code $columns} и
+	 * {@code $order}, имена полей перечисляются через запятую, знак минус перед именем поля в параметре
+	 * {@code $order} - сортировка по убыванию. При выборке по ключу продолжения поля первичного ключа
+	 * добавляются к выбираемым полям.
+	 * <pre>
+	 * .../data/table/rp.users?us_name=Иван&amp;$columns=us_last,us_email&amp;$order=-us_last
+	 * </pre>
+	 * 
 	 * Пример возвращаемого результата формате XML при ошибке в имени поля в строке параметров запроса.
 	 * <pre>
 	 * &lt;?xml version="1.0" encoding="UTF-8" standalone="yes"?&gt;
@@ -152,14 +543,45 @@ public class TableService extends Application {
 	 * @return результат выполнения запроса
 	 * @throws RestException возникшая ошибка
 	 */
-	@GET
-	@Path("table/{object}")
-	public ArrayList<HashMap<String, Object>> get(@BeanParam BeanRequest bean) throws RestException {
+	public Response get(BeanRequest bean) throws RestException {
 		String lang = bean.getLang();
+		String table = getTable(bean.getObject());
+		ArrayList<String> columns = getColumnsOption(table, "columns", bean);
+		ArrayList<String> order = getColumnsOption(table, "order", bean);
 		ArrayList<Object> parameters = new ArrayList<Object>(); 
-		StringBuilder builder = new StringBuilder();
-		builder.append("SELECT * FROM ").append(getTable(bean.getObject())).append(' ');
 		MultivaluedMap<String, String> queryParamas = bean.getQueryParams(); 
+		if (queryParamas.isEmpty() && disableAll && !isPaging(bean)) {
+			throw new RestException("RST0020E", null, lang);
+		}
+		// форма условия выборки: имена полей и число значений, 0 - условие LIKE
+		StringBuilder shape = new StringBuilder();
+		for (String name : queryParamas.keySet()) {
+			List<String> values = queryParamas.get(name);
+			int count = values.size();
+			if (count == 1 && values.get(0).indexOf('%') >= 0) count = 0;
+			appendKey(appendKey(shape, name), count);
+			parameters.addAll(values);
+		}
+		EntityTag tag = getVersionTag(table, true, bean);
+		Response notModified = notModified(tag, bean);
+		if (notModified != null) return notModified;
+		if (isPaging(bean)) {
+			return page(table, columns, shape, parameters, order, tag, bean);
+		}
+		appendKey(appendKey(shape, columns), order);
+		String sql = getSql(bean.getTrace(), "SELECT", table, shape, () -> toSelect(table, columns, toWhere(queryParamas), order));
+		return query(table, sql, parameters, tag, bean);
+	}
+	
+	/**
+	 * Сформировать условие выборки по параметрам запроса. Для поля с несколькими значениями формируется условие
+	 * {@code IN}, для значения, содержащего символ '%', - условие {@code LIKE}.
+	 * 
+	 * @param queryParamas параметры запроса
+	 * @return условие выборки, пустая строка - условие не определено
+	 */
+	private StringBuilder toWhere(MultivaluedMap<String, String> queryParamas) {
+		StringBuilder builder = new StringBuilder();
 		if (queryParamas.size() > 0) {
 			builder.append("WHERE ");
 			boolean secondary = false;
@@ -173,14 +595,13 @@ public class TableService extends Application {
 	        		if (values.size() > 1) {
         				builder.append(name).append(" IN (");
         				boolean valueSecondary = false;
-                			for (Object value : values) {
+                			for (int index = 0; index < values.size(); index++) {
                     				if (valueSecondary) {
                 					builder.append(", ");
                     				} else {
                     					valueSecondary = true;
                     				}
             					builder.append("?");
-    	                			parameters.add(value);       	
     		        		}
         				builder.append(')');
 	            		} else {
@@ -192,41 +613,461 @@ public class TableService extends Application {
 			            		builder.append(" LIKE");
 		        	    	}
 	        	    		builder.append(" ?");
-	                		parameters.add(values.get(0));       	
 	            		}
 		    	}
+		}
+		return builder;
+	}
+	
+	/**
+	 * Сформировать запрос SELECT.
+	 * 
+	 * @param table имя таблицы
+	 * @param columns выбираемые поля, пустой список - все поля
+	 * @param where условие выборки
+	 * @param order поля сортировки
+	 * @return запрос
+	 */
+	private String toSelect(String table, List<String> columns, CharSequence where, List<String> order) {
+		StringBuilder builder = new StringBuilder("SELECT ");
+		if (columns.isEmpty()) {
+			builder.append('*');
 		} else {
-			if (disableAll) {
-				throw new RestException("RST0020E", null, lang);
-			}
+			appendList(builder, columns);
 		}
-		return query(builder.toString(), parameters, lang);
+		builder.append(" FROM ").append(table);
+		if (where.length() > 0) builder.append(' ').append(where);
+		if (!order.isEmpty()) {
+			builder.append(" ORDER BY ");
+			appendList(builder, order);
+		}
+		return builder.toString();
 	}
-
+	
 	/**
-	 * Вставить одну или более записей в таблицу. Если в адресной строке присутсвуют параметры запроса,
-	 * то тело запроса игнорируется. Параметры запроса позволяют вставлять в таблицу одну запись.
-	 * В теле запроса можно определить параметры множества записей для вставки их в таблицу. Все записи
-	 * вставляются в одной транзакции.
+	 * Получить текст SQL запроса из кэша запросов по форме запроса, при отсутствии - сформировать.
 	 * 
-	 * <p>
-	 * Параметры заголовка HTTP запроса
+	 * @param trace время выполнения этапов обработки запроса
+	 * @param operation операция
+	 * @param table имя таблицы
+	 * @param shape форма запроса: имена полей и число значений полей в порядке связывания параметров,
+	 *              элементы формы добавляются методом {@link #appendKey(StringBuilder, Object)}
+	 * @param builder формирование текста запроса
+	 * @return текст запроса
+	 */
+	private String getSql(Trace trace, String operation, String table, CharSequence shape, Supplier<String> builder) {
+		long begin = trace.begin();
+		SqlCache cache = sqlCache;
+		if (cache == null) {
+			cache = new SqlCache(sqlCacheSize);
+			sqlCache = cache;
+		}
+		StringBuilder key = new StringBuilder(operation.length() + table.length() + shape.length() + 8);
+		appendKey(key.append(operation), table).append(shape);
+		String sql = cache.get(key.toString(), builder);
+		trace.end(Trace.SQL, begin);
+		return sql;
+	}
+	
+	/**
+	 * Добавить элемент к форме запроса. Элемент предваряется своей длиной, элементы коллекции добавляются
+	 * по отдельности после числа элементов, поэтому форма запроса однозначно определяет составляющие ее
+	 * элементы независимо от их содержимого: имя поля {@code "a, b"} и имена полей {@code "a"} и {@code "b"}
+	 * образуют разные формы запроса.
 	 * 
-	 * <ul>
-	 * <li>Accept - тип данных ответа, может принимать значения application/json или application/xml
-	 * <li>Content-Language - язык возвращаемых сообщений, по умолчанию ru
-	 * <li>Content-Type - тип данных тела запроса, может принимать значения application/json или application/xml
-	 * </ul>
-	 * <pre>
-	 * http://host:port/name_context/map_servlet/data/table/{schema.table}?параметры_запроса
-	 * </pre>
-	 *
-	 * <p>Пример URL запроса c параметрами для вставки одной записи
-	 * <pre>
-	 * .../data/table/rp.Structure_type?st_id=42&amp;st_name=Test42
-	 * </pre>
+	 * @param key форма запроса
+	 * @param item элемент, коллекция элементов или {@code null}
+	 * @return форма запроса
+	 */
+	static StringBuilder appendKey(StringBuilder key, Object item) {
+		if (item instanceof Collection) {
+			Collection<?> items = (Collection<?>) item;
+			key.append(items.size()).append('[');
+			for (Object element : items) {
+				appendKey(key, element);
+			}
+			return key.append(']');
+		}
+		if (item == null) return key.append('-');
+		String value = item.toString();
+		return key.append(value.length()).append(':').append(value);
+	}
+	
+	/**
+	 * Добавить к запросу список присваиваний или сравнений {@code name = ?}.
 	 * 
-	 * <p>Пример URL запроса, отсутсвие параметров запроса требует наличия тела запроса
+	 * @param builder запрос
+	 * @param names имена полей
+	 * @param separator разделитель элементов списка
+	 */
+	private void appendAssignments(StringBuilder builder, List<String> names, String separator) {
+		boolean secondary = false;
+		for (String name : names) {
+			if (secondary) {
+				builder.append(separator);
+			} else {
+				secondary = true;
+			}
+			builder.append(name).append(" = ?");
+		}
+	}
+	
+	private void appendList(StringBuilder builder, List<String> list) {
+		boolean secondary = false;
+		for (String item : list) {
+			if (secondary) {
+				builder.append(", ");
+			} else {
+				secondary = true;
+			}
+			builder.append(item);
+		}
+	}
+	
+	/**
+	 * Получить список полей таблицы, определенный зарезервированным параметром. Имена полей перечисляются
+	 * через запятую и проверяются по метаданным таблицы. В параметре {@code $order} признак сортировки по
+	 * убыванию - знак минус перед именем поля.
+	 * 
+	 * @param table имя таблицы
+	 * @param name имя параметра {@code columns} или {@code order} 
+	 * @param bean параметры HTTP запроса
+	 * @return список полей, для параметра {@code order} - с признаком сортировки {@code DESC} 
+	 * @throws RestException поле не входит в таблицу
+	 */
+	private ArrayList<String> getColumnsOption(String table, String name, BeanRequest bean) throws RestException {
+		ArrayList<String> list = new ArrayList<String>();
+		String option = bean.getOption(name);
+		if (option == null) return list;
+		for (String item : option.split(",")) {
+			String column = item.trim();
+			boolean descending = "order".equals(name) && column.startsWith("-");
+			if (descending) column = column.substring(1).trim();
+			String found = getColumn(table, column, bean.getLang());
+			list.add(descending ? found + " DESC" : found);
+		}
+		return list;
+	}
+	
+	/**
+	 * Проверить наличие поля в таблице по метаданным таблицы без учета регистра имени.
+	 * 
+	 * @param table имя таблицы
+	 * @param name имя поля
+	 * @param lang язык локализации
+	 * @return имя поля в метаданных таблицы 
+	 * @throws RestException поле не входит в таблицу
+	 */
+	private String getColumn(String table, String name, String lang) throws RestException {
+		for (String field : getColumns(table, lang)) {
+			if (field.equalsIgnoreCase(name)) return field;
+		}
+		// Поле {0} не определено в таблице {1}
+		throw new RestException("RST0029E", new Object[] {name, table}, lang);
+	}
+	
+	/**
+	 * Проверить определение постраничной выборки.
+	 * 
+	 * @param bean параметры HTTP запроса
+	 * @return {@code true}, если определен хотя бы один из параметров {@code $limit}, {@code $offset} или {@code $after}
+	 */
+	private boolean isPaging(BeanRequest bean) {
+		return bean.getOption("limit") != null || bean.getOption("offset") != null || bean.getOption("after") != null;
+	}
+	
+	/**
+	 * Выполнить постраничную выборку записей таблицы. Из БД выбирается на одну запись больше размера страницы,
+	 * наличие этой записи означает существование следующей страницы. Чтобы ограничение числа записей результата
+	 * (параметры {@code maxRows}, {@code maxRowsLimits}) не отбрасывало эту запись, размер страницы уменьшается
+	 * до ограничения без одной записи.
+	 * 
+	 * @param table имя таблицы
+	 * @param columns выбираемые поля
+	 * @param shape форма условия выборки (см. {@link #getSql(Trace, String, String, CharSequence, Supplier)})
+	 * @param parameters параметры запроса
+	 * @param order поля сортировки
+	 * @param tag тег сущности ответа по версии таблицы или {@code null}
+	 * @param bean параметры HTTP запроса
+	 * @return страница записей
+	 * @throws RestException возникшая ошибка
+	 */
+	private Response page(String table, ArrayList<String> columns, StringBuilder shape, ArrayList<Object> parameters, ArrayList<String> order, EntityTag tag, BeanRequest bean) throws RestException {
+		String lang = bean.getLang();
+		int limit = getOption(bean, "limit", maxLimit);
+		if (limit < 1 || limit > maxLimit) {
+			// Размер страницы {0} должен быть в диапазоне от 1 до {1}
+			throw new RestException("RST0027E", new Object[] {limit, maxLimit}, lang);
+		}
+		int rowLimit = getStatementLimits().getMaxRows(table);
+		if (rowLimit > 0 && limit >= rowLimit) {
+			if (rowLimit == 1) {
+				// Размер страницы {0} должен быть в диапазоне от 1 до {1}
+				throw new RestException("RST0027E", new Object[] {limit, rowLimit - 1}, lang);
+			}
+			limit = rowLimit - 1;
+		}
+		int offset = getOption(bean, "offset", -1);
+		String after = bean.getOption("after");
+		if ((offset != -1 || !order.isEmpty()) && after != null) {
+			// Недопустимое значение {1} параметра {0}
+			throw new RestException("RST0026E", new Object[] {"$after", after}, lang);
+		}
+		ArrayList<String> key = getPrimary(table, lang);
+		// выборка по ключу продолжения, иначе - LIMIT/OFFSET
+		boolean keyset = offset == -1 && order.isEmpty() && !key.isEmpty();
+		if (!keyset && offset == -1) offset = 0;
+		if (after != null) {
+			if (key.isEmpty()) {
+				// Таблица {0} не имеет первичного ключа
+				throw new RestException("RST0028E", new Object[] {table}, lang);
+			}
+			String[] values;
+			try {
+				values = MAPPER.readValue(Base64.getUrlDecoder().decode(after), String[].class);
+			} catch (Exception e) {
+				values = null;
+			}
+			if (values == null || values.length != key.size()) {
+				// Недопустимое значение {1} параметра {0}
+				throw new RestException("RST0026E", new Object[] {"$after", after}, lang);
+			}
+			// значения ключа передаются в запрос с типами полей ключа, сравнение строк с полями
+			// других типов зависит от неявного приведения типов СУБД
+			TableMetadata metadata = getTableMetadata(table, lang);
+			for (int index = 0; index < values.length; index++) {
+				int type = Types.VARCHAR;
+				for (int column = 0; column < metadata.getColumns().size(); column++) {
+					if (metadata.getColumns().get(column).equalsIgnoreCase(key.get(index))) {
+						type = metadata.getTypes()[column];
+						break;
+					}
+				}
+				try {
+					parameters.add(toKeyValue(values[index], type));
+				} catch (IllegalArgumentException e) {
+					// Недопустимое значение {1} параметра {0}
+					throw new RestException("RST0026E", new Object[] {"$after", after}, lang);
+				}
+			}
+		}
+		ArrayList<String> sort = new ArrayList<String>(order);
+		for (String field : key) {
+			if (keyset && !columns.isEmpty() && !columns.contains(field)) {
+				columns.add(field);
+			}
+			boolean sorted = false;
+			for (String item : order) {
+				sorted = sorted || item.equals(field) || item.equals(field + " DESC");
+			}
+			if (!sorted) sort.add(field);
+		}
+		parameters.add(limit + 1);
+		if (!keyset) parameters.add(offset);
+		boolean continuation = after != null;
+		appendKey(appendKey(appendKey(shape, columns), sort), keyset ? (continuation ? "A" + key : "K") : "O");
+		String sql = getSql(bean.getTrace(), "PAGE", table, shape, () -> {
+			StringBuilder builder = toWhere(bean.getQueryParams());
+			if (continuation) {
+				builder.append(builder.length() > 0 ? " AND (" : "WHERE (");
+				appendList(builder, key);
+				builder.append(key.size() > 1 ? ") > (?" : ") > ?");
+				for (int index = 1; index < key.size(); index++) {
+					builder.append(", ?");
+				}
+				if (key.size() > 1) builder.append(')');
+			}
+			StringBuilder select = new StringBuilder(toSelect(table, columns, builder, sort));
+			select.append(" LIMIT ?");
+			if (!keyset) select.append(" OFFSET ?");
+			return select.toString();
+		});
+		RowTable rows;
+		try {
+			rows = select(table, sql, parameters, bean);
+		} catch (Exception e) {
+			throw new RestException("RST0001E", null, e, lang);
+		}
+		URI next = null;
+		if (rows.size() > limit) {
+			rows.getRows().remove(limit);
+			if (keyset) {
+				next = bean.getNextUri("after", getContinuation(rows, key, lang));
+			} else {
+				next = bean.getNextUri("offset", Integer.toString(offset + limit));
+			}
+		}
+		Response.ResponseBuilder response;
+		try {
+			response = ok(rows, tag, bean);
+		} catch (Exception e) {
+			throw new RestException("RST0001E", null, e, lang);
+		}
+		if (next != null) response.link(next, "next");
+		return response.build();
+	}
+	
+	/**
+	 * Преобразовать значение поля ключа продолжения постраничной выборки к типу поля таблицы. Значение
+	 * в ключе продолжения - строковое представление значения, полученного из БД (см.
+	 * {@link #getContinuation(RowTable, ArrayList, String)}).
+	 * 
+	 * @param value строковое значение
+	 * @param type тип поля {@link Types}
+	 * @return значение типа поля, для прочих типов - строка
+	 * @throws IllegalArgumentException значение не соответствует типу поля
+	 */
+	static Object toKeyValue(String value, int type) {
+		if (value == null) return null;
+		switch (type) {
+		case Types.TINYINT:
+		case Types.SMALLINT:
+		case Types.INTEGER:
+			return Integer.valueOf(value);
+		case Types.BIGINT:
+			return Long.valueOf(value);
+		case Types.NUMERIC:
+		case Types.DECIMAL:
+			return new BigDecimal(value);
+		case Types.REAL:
+		case Types.FLOAT:
+		case Types.DOUBLE:
+			return Double.valueOf(value);
+		case Types.BIT:
+		case Types.BOOLEAN:
+			return Boolean.valueOf(value);
+		case Types.DATE:
+			return Date.valueOf(value);
+		case Types.TIME:
+			return Time.valueOf(value);
+		case Types.TIMESTAMP:
+			return Timestamp.valueOf(value);
+		case Types.TIMESTAMP_WITH_TIMEZONE:
+			try {
+				return OffsetDateTime.parse(value);
+			} catch (DateTimeParseException e) {
+				return Timestamp.valueOf(value);
+			}
+		case Types.BINARY:
+		case Types.OTHER:
+			// тип uuid PostgreSQL и H2
+			try {
+				return UUID.fromString(value);
+			} catch (IllegalArgumentException e) {
+				return value;
+			}
+		default:
+			return value;
+		}
+	}
+	
+	/**
+	 * Сформировать ключ продолжения постраничной выборки по значениям первичного ключа последней записи страницы.
+	 * 
+	 * @param rows записи страницы
+	 * @param key поля первичного ключа
+	 * @param lang язык локализации
+	 * @return ключ продолжения
+	 * @throws RestException возникшая ошибка
+	 */
+	private String getContinuation(RowTable rows, ArrayList<String> key, String lang) throws RestException {
+		Object[] last = rows.getRows().get(rows.size() - 1);
+		String[] columns = rows.getColumns();
+		String[] values = new String[key.size()];
+		for (int index = 0; index < values.length; index++) {
+			for (int column = 0; column < columns.length; column++) {
+				if (columns[column].equalsIgnoreCase(key.get(index))) {
+					values[index] = String.valueOf(last[column]);
+					break;
+				}
+			}
+		}
+		try {
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsString(values).getBytes(StandardCharsets.UTF_8));
+		} catch (Exception e) {
+			throw new RestException("RST0001E", null, e, lang);
+		}
+	}
+	
+	/**
+	 * Получить целочисленное значение зарезервированного параметра запроса.
+	 * 
+	 * @param bean параметры HTTP запроса
+	 * @param name имя параметра
+	 * @param value значение по умолчанию
+	 * @return значение параметра
+	 * @throws RestException значение параметра не является целым неотрицательным числом
+	 */
+	private int getOption(BeanRequest bean, String name, int value) throws RestException {
+		String option = bean.getOption(name);
+		if (option == null) return value;
+		try {
+			value = Integer.parseInt(option);
+		} catch (NumberFormatException e) {
+			value = -1;
+		}
+		if (value < 0) {
+			// Недопустимое значение {1} параметра {0}
+			throw new RestException("RST0026E", new Object[] {BeanRequest.OPTION + name, option}, bean.getLang());
+		}
+		return value;
+	}
+
+	/**
+	 * Асинхронное выполнение метода {@link #post(BeanRequest, InputStream)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса
+	 * @param response асинхронный ответ
+	 */
+	@POST
+	@Path("table/{object}")
+	public void post(@BeanParam BeanRequest bean, InputStream body, @Suspended AsyncResponse response) {
+		async(response, bean, "post", getTable(bean.getObject()), () -> post(bean, bean.getSeries().count(body)));
+	}
+	
+	/**
+	 * Вставить одну или более записей в таблицу. Если в адресной строке присутсвуют параметры запроса,
+	 * то тело запроса игнорируется. Параметры запроса позволяют вставлять в таблицу одну запись.
+	 * В теле запроса можно определить параметры множества записей для вставки их в таблицу. Все записи
+	 * вставляются в одной транзакции.
+	 * 
+	 * <p>
+	 * При определенном параметре {@code resource} множество записей тела запроса вставляется пакетным
+	 * выполнением одного запроса INSERT порциями размером {@code batchSize}. Все записи должны иметь
+	 * одинаковый набор полей.
+	 * 
+	 * <p>
+	 * Зарезервированный параметр {@code $mode=upsert} определяет вставку записей с модификацией существующих
+	 * записей при совпадении значений первичного ключа, записи должны содержать значения всех полей первичного
+	 * ключа. Запрос формируется в синтаксисе СУБД ({@code INSERT ... ON CONFLICT (key) DO UPDATE} для PostgreSQL,
+	 * {@code MERGE} для СУБД, поддерживающих стандартную форму) и выполняется пакетно порциями размером
+	 * {@code batchSize} в одной транзакции. Требует определения параметра {@code resource}. Число обработанных
+	 * записей, выдаваемое в результате, определяется драйвером СУБД
+	 * <pre>
+	 * POST .../data/table/rp.structure_type?$mode=upsert
+	 * 
+	 * [{"st_id":41,"st_name":"Test41"},{"st_id":42,"st_name":"Test42"}]
+	 * </pre>
+	 * 
+	 * <p>
+	 * Параметры заголовка HTTP запроса
+	 * 
+	 * <ul>
+	 * <li>Accept - тип данных ответа, может принимать значения application/json или application/xml
+	 * <li>Content-Language - язык возвращаемых сообщений, по умолчанию ru
+	 * <li>Content-Type - тип данных тела запроса, может принимать значения application/json или application/xml
+	 * </ul>
+	 * <pre>
+	 * http://host:port/name_context/map_servlet/data/table/{schema.table}?параметры_запроса
+	 * </pre>
+	 *
+	 * <p>Пример URL запроса c параметрами для вставки одной записи
+	 * <pre>
+	 * .../data/table/rp.Structure_type?st_id=42&amp;st_name=Test42
+	 * </pre>
+	 * 
+	 * <p>Пример URL запроса, отсутсвие параметров запроса требует наличия тела запроса
 	 * <pre>
 	 * ../data/table/rp.Structure_type
 	 * </pre>
@@ -255,7 +1096,7 @@ public class TableService extends Application {
 	 * 
 	 * @param bean объект передачи параметров запроса HTTP заголовка {@code (@HeaderParam)}, параметров в URI {@code (@PathParam)}
 	 *             и параметров запроса {@code (@QueryParam)} 
-	 * @param records объект передачи параметров вставляемых записей в теле запроса  
+	 * @param body тело запроса со вставляемыми записями, записи читаются последовательно по мере разбора тела запроса
 
 	 * @throws RestException информация о причине ошибки
 	 * 
@@ -280,222 +1121,520 @@ public class TableService extends Application {
 	 *   &lt;message&gt;При выполнении оператора INSERT возникла ошибка.&lt;/message&gt;
 	 * &lt;/serverError&gt;	 * </pre>
 	 */
-	@POST
-	@Path("table/{object}")
-	public Response post(@BeanParam BeanRequest bean, ArrayList<HashMap<String, Object>> records) throws RestException {
+	public Response post(BeanRequest bean, InputStream body) throws RestException {
 		String lang = bean.getLang();
+		String table = getTable(bean.getObject());
 		ArrayList<Object> parameters = new ArrayList<Object>(); 
-		StringBuilder builder = new StringBuilder();
-		ArrayList<String> insertValues = new ArrayList<String>();;
-		builder.append("INSERT INTO ").append(getTable(bean.getObject())).append(" (");
+		ArrayList<String> names = new ArrayList<String>(); // поля запроса
+		ArrayList<Integer> counts = new ArrayList<Integer>(); // число значений каждой записи
 		MultivaluedMap<String, String> queryParamas = bean.getQueryParams(); 
+		String mode = bean.getOption("mode");
+		if (mode != null) {
+			if (!"upsert".equals(mode)) {
+				// Недопустимое значение {1} параметра {0}
+				throw new RestException("RST0026E", new Object[] {BeanRequest.OPTION + "mode", mode}, lang);
+			}
+			return Response.ok(upsert(bean, table, body)).build();
+		}
 		if (queryParamas.size() > 0) {
-			StringBuilder values = new StringBuilder();
-			values.append("(");
-			boolean secondary = false;
 			for (String name : queryParamas.keySet()) {
-   		         	if (secondary) {
-        				builder.append(", ");
-        				values.append(", ");
-            			} else {
-            				secondary = true;
-            			}
             			List<String> query = queryParamas.get(name);
 	            		if (query.size() > 1) {
 	            			// Для поля {0} определено более одного значения {1}
 	            			throw new RestException("RST0002E", new Object[] {name, query.toString()}, lang);
 	            		} else {
-        				builder.append(name);
-        				values.append("?");
+        				names.add(name);
 	                		parameters.add(query.get(0));       	
 	            		}
 		    	}
-			values.append(")");
-			insertValues.add(values.toString());
+			counts.add(names.size());
 		} else {
-			if (records == null) {
+			RecordReader reader = getReader(bean, body);
+			ArrayList<HashMap<String, Object>> records = new ArrayList<HashMap<String, Object>>();
+			HashMap<String, Object> record = next(reader, lang);
+			if (record == null) {
             			throw new RestException("RST0004E", null, lang);
+			}
+			records.add(record);
+			record = next(reader, lang);
+			if (record != null && resource != null) {
+				// записи вставляются пакетами по мере чтения тела запроса
+				records.add(record);
+				return Response.ok(insert(table, records, reader, lang)).build();
 			} else {
-				boolean first = true; // сформировать список полей по первой записи
-				for (HashMap<String, Object> record : records) {
-					StringBuilder values = new StringBuilder();
-					values.append("(");
-					boolean secondary = false; // false - первое поле, true - последующие поля записи 
-					for (String name : record.keySet()) {
-		            			if (secondary) {
-		            				if (first) builder.append(", ");
-		        				values.append(", ");
-		            			} else {
-		            				secondary = true;
-		            			}
-		            			if (first) builder.append(name);
-	        				values.append("?");
-		                		parameters.add(record.get(name));       	
+				while (record != null) {
+					records.add(record);
+					record = next(reader, lang);
+				}
+				names.addAll(records.get(0).keySet()); // сформировать список полей по первой записи
+				for (HashMap<String, Object> current : records) {
+					for (String name : current.keySet()) {
+		                		parameters.add(current.get(name));       	
 					}
-					values.append(")");
-					insertValues.add(values.toString());
-					first = false;
+					counts.add(current.size());
 				}
 			}
 		}
-		builder.append(") VALUES ");
-		boolean secondary = false;
-    		for (String values : insertValues) {
-        		if (secondary) {
-    				builder.append(", ");
-        		} else {
-	        		secondary = true;
-        		}
-			builder.append(values);
-    		}
+		Supplier<String> statement = () -> {
+			StringBuilder builder = new StringBuilder();
+			builder.append("INSERT INTO ").append(table).append(" (");
+			appendList(builder, names);
+			builder.append(") VALUES ");
+			for (int record = 0; record < counts.size(); record++) {
+				if (record > 0) builder.append(", ");
+				builder.append('(');
+				for (int index = 0; index < counts.get(record); index++) {
+					builder.append(index == 0 ? "?" : ", ?");
+				}
+				builder.append(')');
+			}
+			return builder.toString();
+		};
+		String sql;
+		if (counts.size() == 1) {
+			sql = getSql(bean.getTrace(), "INSERT", table, appendKey(appendKey(new StringBuilder(), names), counts), statement);
+		} else {
+			// текст запроса с переменным числом записей не кэшируется: каждое число записей давало бы
+			// отдельный элемент кэша, вытесняющий повторно используемые запросы
+			long begin = bean.getTrace().begin();
+			sql = statement.get();
+			bean.getTrace().end(Trace.SQL, begin);
+		}
 		try {
-			return Response.ok(query(builder.toString(), parameters)).build();
+			return Response.ok(query(table, sql, parameters, bean.getTrace())).build();
 		} catch (Exception e) {
 			throw new RestException("RST0003E", null, e, lang);
 		}
 	}
 
 	/**
-	 * Модифицировать запись таблицы. В параметрах запроса указываются либо только значения полей первичного
-	 * ключа таблицы и присутсвует тело запроса, либо все значения указываются в строке запроса, при этом, если
-	 * модифицируются поля первичного ключа, то указываются в адресной строке два занчения: первое - текущее
-	 * значение ключевого поля, второе - новое значение.
+	 * Асинхронное выполнение метода {@link #load(BeanRequest, InputStream)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса
+	 * @param response асинхронный ответ
+	 */
+	@POST
+	@Path("table/{object}")
+	@Consumes("text/csv")
+	public void load(@BeanParam BeanRequest bean, InputStream body, @Suspended AsyncResponse response) {
+		async(response, bean, "load", getTable(bean.getObject()), () -> load(bean, bean.getSeries().count(body)));
+	}
+	
+	/**
+	 * Загрузить записи в таблицу из тела запроса в формате CSV (Content-Type: text/csv). Первая строка тела
+	 * запроса содержит имена полей, последующие - значения полей записей. Пустое значение без кавычек - NULL.
+	 * Требует определения параметра {@code resource}. Все записи загружаются в одной транзакции.
 	 * 
 	 * <p>
-	 * Пример запроса модификации записи с параметрами в адресной строке. Значение 101 ключевого поля st_id будет
-	 * заменено на значение 1  
-	 * <pre>
-	 * .../data/table/rp.structure_type?st_id=101&amp;st_id=1&amp;st_name=Test101
-	 * </pre>
+	 * Для PostgreSQL тело запроса передается непосредственно в команду {@code COPY ... FROM STDIN}, для других
+	 * СУБД записи читаются из тела запроса последовательно и вставляются пакетным выполнением запроса INSERT
+	 * порциями размером {@code batchSize}. В обоих случаях записи не накапливаются в памяти.
 	 * 
-	 * Пример запроса модификации почтового адреса пользователя, параметры us_name и us_last - поля первичного
-	 * ключа таблицы rp.users, устанавливаемое значение почтового адреса передается в теле запроса   
 	 * <pre>
-	 * PUT .../data/table/rp.users?us_name=Иван&amp;us_last=Иванов HTTP/1.1
-	 * Accept: application/xml
-	 * Content-Language: ru
-	 * Content-Length: 40
-	 * Host: localhost:8080
-	 * Content-Type: application/json
+	 * POST .../data/table/rp.structure_type HTTP/1.1
+	 * Content-Type: text/csv; charset=UTF-8
 	 * 
-	 * [{"us_email":"I.Iivanov%40domain.ru"}]
+	 * st_id,st_name
+	 * 45,Test45
+	 * 46,"Test 46, Test 47"
 	 * </pre>
 	 * 
-	 * Пример результата при ошибке в формате JSON, если указаны неверные значения ключевых полей.
-	 * Код ответа: 404  
-	 * <pre>
-	 * {
-	 *   "message": "Запись по полученным значениям ключа не найдена.",
-	 *   "code": "RST0019E",
-	 *   "cause": null
-	 * }
-	 * </pre>
-	 *  
 	 * @param bean параметры запроса
-	 * @param records уснанавливаемые значениея полей записи
-	 * @throws RestException при возникновении ошибки
+	 * @param body тело запроса
+	 * @return число загруженных записей
+	 * @throws RestException возникшая ошибка
 	 */
-	@PUT
-	@Path("table/{object}")
-	public Response put(@BeanParam BeanRequest bean, ArrayList<HashMap<String, Object>> records) throws RestException {
-		String table = getTable(bean.getObject());
+	public Response load(BeanRequest bean, InputStream body) throws RestException {
 		String lang = bean.getLang();
-		ArrayList<String> key = primary.get(table);
-		if (key == null) {
-			// получить первичный ключ таблицы 
-			key = getPrimaryKeys(table, lang);
-			primary.put(table, key);
+		String table = getTable(bean.getObject());
+		if (resource == null) {
+			// Источник данных БД не определен (параметр resource)
+			throw new RestException("RST0031E", null, lang);
 		}
-		StringBuilder builder = new StringBuilder();
-		StringBuilder where = new StringBuilder();
-		ArrayList<Object> parameters = new ArrayList<Object>();
-		builder.append("UPDATE ").append(table).append(" SET ");
-		MultivaluedMap<String, String> queryParamas = bean.getQueryParams(); 
-		boolean notUsedBody = true;
-		if (records != null) {
-			if (records.size() == 1) {
-				notUsedBody = false;
-				HashMap<String, Object> record = records.get(0);
-				boolean secondary = false;
-				for (String name : record.keySet()) {
-	        		    	if (secondary) {
-	        				builder.append(", ");
-	            			} else {
-	            				secondary = true;
-	            			}
-					builder.append(name).append(" = ?");
-		                    parameters.add(record.get(name));       	
-				}
-			} else {
-            			// Для оператора UPDATE не допустимо определять в теле запроса более одной записи.
-				throw new RestException("RST0010E", null, lang);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(body, bean.getCharset()));
+		CsvReader csv = new CsvReader(reader);
+		ArrayList<String> names = new ArrayList<String>();
+		try {
+			ArrayList<String> header = csv.read();
+			if (header == null) {
+				throw new RestException("RST0004E", null, lang);
 			}
+			for (String name : header) {
+				names.add(getColumn(table, name == null ? "" : name.trim(), lang));
+			}
+		} catch (RestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException("RST0003E", null, e, lang);
 		}
-		if (queryParamas.size() > 0) {
-			int set = 0; // позиция устанавливаемых параметров SET
-			boolean secondary = false;
-			boolean secondaryWhere = false;
-			ArrayList<String> keyWhere = new ArrayList<String>(); // добавленные в условие WHERE значения первичного ключа 
-			for (String name : queryParamas.keySet()) {
-            			String lowerName = name.toLowerCase();
-				List<String> query = queryParamas.get(name);
-				switch (query.size()) {
-				case 1:
-					if (key.contains(lowerName)) {
-						if (!keyWhere.contains(lowerName)) {
-							if (secondaryWhere) {
-			        				where.append(" AND ");
-							} else {
-								secondaryWhere = true;
-							}
-							where.append(name).append(" = ?");
-							parameters.add(query.get(0));
-							keyWhere.add(lowerName);
-						} else {
-			            			// Определение дублирующего значения {0} ключевого поля {1}
-							throw new RestException("RST0025E", new Object[] {query.toString(), name}, lang);
-						}
-					} else {
-						if (notUsedBody) {
-			            			if (secondary) {
-			        				builder.append(", ");
-			            			} else {
-			            				secondary = true;
-			            			}
-							builder.append(name).append(" = ?");
-			                		parameters.add(set, query.get(0));
-			                		set++;
-						} else {
-			            			// Для поля {0}, не входящее в первичный ключ, недопустимо определять значение {1} при определении тела запроса
-							throw new RestException("RST0012E", new Object[] {name, query.toString()}, lang);
+		StringBuilder builder = new StringBuilder();
+		appendList(builder, names);
+		String list = builder.toString();
+		long timer = System.currentTimeMillis();
+		BeanResponse beanResponse;
+		try {
+			beanResponse = Transaction.execute(getDataSource(), connection -> {
+				if (PgCopy.isSupported(connection)) {
+					String sql = "COPY " + table + " (" + list + ") FROM STDIN WITH (FORMAT csv)";
+					return new BeanResponse("COPY", (int) PgCopy.copyIn(connection, sql, csv.getRemainder()));
+				}
+				StringBuilder sql = new StringBuilder();
+				sql.append("INSERT INTO ").append(table).append(" (").append(list).append(") VALUES (");
+				for (int index = 0; index < names.size(); index++) {
+					sql.append(index == 0 ? "?" : ", ?");
+				}
+				sql.append(')');
+				try (BatchStatement statement = new BatchStatement(connection, sql.toString(), batchSize)) {
+					ArrayList<Object> parameters = new ArrayList<Object>(names.size());
+					ArrayList<String> record;
+					int index = 0;
+					while ((record = csv.read()) != null) {
+						index++;
+						if (record.size() != names.size()) {
+							// Поля записи {0} не совпадают с полями {1} первой записи
+							throw new RestException("RST0030E", new Object[] {index, names.toString()}, lang);
 						}
+						parameters.clear();
+						parameters.addAll(record);
+						statement.add(parameters);
 					}
-					break;
-				case 2:
-					if (key.contains(lowerName)) {
-						if (!keyWhere.contains(lowerName)) {
-							if (secondaryWhere) {
-			        				where.append(" AND ");
-							} else {
-								secondaryWhere = true;
-							}
-							where.append(name).append(" = ?"); // первое значение поля ключа - текущее значение
-			                		parameters.add(query.get(0));
-							keyWhere.add(lowerName);
-						} else {
-			            			// Определение дублирующего значения {0} ключевого поля {1}
-							throw new RestException("RST0025E", new Object[] {query.toString(), name}, lang);
-						}
-						if (notUsedBody) {
+					statement.flush();
+					return new BeanResponse("INSERT", statement.getCount());
+				}
+			});
+		} catch (RestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException("RST0003E", null, e, lang);
+		}
+		modified(table);
+		beanResponse.setTimer(System.currentTimeMillis() - timer);
+		return Response.ok(beanResponse).build();
+	}
+	
+	/**
+	 * Вставить записи в таблицу пакетным выполнением запроса INSERT в одной транзакции. Набор полей запроса
+	 * определяется первой записью. Сначала вставляются уже прочитанные записи, затем записи, последовательно
+	 * читаемые из тела запроса.
+	 * 
+	 * @param table имя таблицы
+	 * @param records прочитанные записи, не пустой список
+	 * @param reader чтение остальных записей тела запроса или {@code null}
+	 * @param lang язык локализации
+	 * @return суммарное число вставленных записей
+	 * @throws RestException возникшая ошибка
+	 */
+	private BeanResponse insert(String table, ArrayList<HashMap<String, Object>> records, RecordReader reader, String lang) throws RestException {
+		ArrayList<String> names = new ArrayList<String>(records.get(0).keySet());
+		String sql = getInsertSql(table, names);
+		long timer = System.currentTimeMillis();
+		int count;
+		try {
+			count = Transaction.execute(getDataSource(), connection -> {
+				try (BatchStatement statement = new BatchStatement(connection, sql, batchSize)) {
+					return execute(statement, names, records, reader, lang);
+				}
+			});
+		} catch (RestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException("RST0003E", null, e, lang);
+		}
+		modified(table);
+		BeanResponse beanResponse = new BeanResponse("INSERT", count);
+		beanResponse.setTimer(System.currentTimeMillis() - timer);
+		return beanResponse;
+	}
+
+	/**
+	 * Сформировать запрос вставки одной записи.
+	 * 
+	 * @param table имя таблицы
+	 * @param names поля записи
+	 * @return запрос {@code INSERT INTO table (...) VALUES (?, ...)}
+	 */
+	private String getInsertSql(String table, List<String> names) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("INSERT INTO ").append(table).append(" (");
+		appendList(builder, names);
+		builder.append(") VALUES (");
+		for (int index = 0; index < names.size(); index++) {
+			builder.append(index == 0 ? "?" : ", ?");
+		}
+		return builder.append(')').toString();
+	}
+
+	/**
+	 * Вставить записи с модификацией существующих записей при совпадении значений первичного ключа (upsert)
+	 * пакетным выполнением одного запроса в одной транзакции. Запись определяется параметрами запроса либо
+	 * записями тела запроса, набор полей запроса определяется первой записью.
+	 * 
+	 * @param bean параметры запроса
+	 * @param table имя таблицы
+	 * @param body тело запроса
+	 * @return суммарное число обработанных записей
+	 * @throws RestException возникшая ошибка
+	 */
+	private BeanResponse upsert(BeanRequest bean, String table, InputStream body) throws RestException {
+		String lang = bean.getLang();
+		if (resource == null) {
+			// Источник данных БД не определен (параметр resource)
+			throw new RestException("RST0031E", null, lang);
+		}
+		ArrayList<String> key = getPrimary(table, lang);
+		ArrayList<HashMap<String, Object>> records = new ArrayList<HashMap<String, Object>>();
+		RecordReader reader = null;
+		MultivaluedMap<String, String> queryParamas = bean.getQueryParams(); 
+		if (queryParamas.size() > 0) {
+			HashMap<String, Object> record = new HashMap<String, Object>();
+			for (String name : queryParamas.keySet()) {
+				List<String> query = queryParamas.get(name);
+				if (query.size() > 1) {
+					// Для поля {0} определено более одного значения {1}
+					throw new RestException("RST0002E", new Object[] {name, query.toString()}, lang);
+				}
+				record.put(name, query.get(0));
+			}
+			records.add(record);
+		} else {
+			reader = getReader(bean, body);
+			HashMap<String, Object> record = next(reader, lang);
+			if (record == null) {
+				throw new RestException("RST0004E", null, lang);
+			}
+			records.add(record);
+		}
+		ArrayList<String> names = new ArrayList<String>(records.get(0).keySet()); // поля записей
+		ArrayList<String> columns = new ArrayList<String>(); // поля запроса
+		ArrayList<String> keyColumns = new ArrayList<String>(); // поля первичного ключа
+		getUpsertColumns(table, key, names, columns, keyColumns, lang);
+		RecordReader rest = reader;
+		long timer = System.currentTimeMillis();
+		int count;
+		try {
+			count = Transaction.execute(getDataSource(), connection -> {
+				String sql = Upsert.getSql(connection, table, columns, keyColumns);
+				bean.getTrace().setSql(sql, columns.size());
+				try (BatchStatement statement = new BatchStatement(connection, sql, batchSize)) {
+					return execute(statement, names, records, rest, lang);
+				}
+			});
+		} catch (RestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException("RST0003E", null, e, lang);
+		}
+		modified(table);
+		BeanResponse beanResponse = new BeanResponse("UPSERT", count);
+		beanResponse.setTimer(System.currentTimeMillis() - timer);
+		return beanResponse;
+	}
+
+	/**
+	 * Получить поля запроса upsert, соответствующие полям записи.
+	 * 
+	 * @param table имя таблицы
+	 * @param key поля первичного ключа таблицы
+	 * @param names поля записи
+	 * @param columns заполняемый список полей запроса в порядке полей записи
+	 * @param keyColumns заполняемый список полей первичного ключа
+	 * @param lang язык локализации
+	 * @throws RestException поле не определено в таблице или определены не все поля ключа
+	 */
+	private void getUpsertColumns(String table, ArrayList<String> key, List<String> names, ArrayList<String> columns,
+			ArrayList<String> keyColumns, String lang) throws RestException {
+		if (key.isEmpty()) {
+			// Таблица {0} не имеет первичного ключа
+			throw new RestException("RST0028E", new Object[] {table}, lang);
+		}
+		for (String name : names) {
+			String column = getColumn(table, name, lang);
+			columns.add(column);
+			if (key.contains(column.toLowerCase())) keyColumns.add(column);
+		}
+		if (keyColumns.size() != key.size()) {
+			// Записи должны содержать значения полей первичного ключа {0} таблицы {1}
+			throw new RestException("RST0037E", new Object[] {key.toString(), table}, lang);
+		}
+	}
+
+	/**
+	 * Выполнить пакетный запрос для каждой записи. Сначала обрабатываются уже прочитанные записи, затем записи,
+	 * последовательно читаемые из тела запроса. Все записи должны иметь набор полей первой записи.
+	 * 
+	 * @param statement пакетный запрос
+	 * @param names поля записи в порядке параметров запроса
+	 * @param records прочитанные записи, не пустой список
+	 * @param reader чтение остальных записей тела запроса или {@code null}
+	 * @param lang язык локализации
+	 * @return суммарное число обработанных записей
+	 * @throws Exception ошибка выполнения или чтения тела запроса
+	 */
+	private int execute(BatchStatement statement, ArrayList<String> names, ArrayList<HashMap<String, Object>> records, RecordReader reader, String lang) throws Exception {
+		ArrayList<Object> parameters = new ArrayList<Object>(names.size());
+		int index = 0;
+		HashMap<String, Object> record = records.get(0);
+		while (record != null) {
+			index++;
+			if (record.size() != names.size() || !record.keySet().containsAll(names)) {
+				// Поля записи {0} не совпадают с полями первой записи {1}
+				throw new RestException("RST0030E", new Object[] {index, names.toString()}, lang);
+			}
+			parameters.clear();
+			for (String name : names) {
+				parameters.add(record.get(name));
+			}
+			statement.add(parameters);
+			if (index < records.size()) {
+				record = records.get(index);
+			} else {
+				record = reader == null ? null : next(reader, lang);
+			}
+		}
+		statement.flush();
+		return statement.getCount();
+	}
+
+	/**
+	 * Асинхронное выполнение метода {@link #put(BeanRequest, InputStream)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса
+	 * @param response асинхронный ответ
+	 */
+	@PUT
+	@Path("table/{object}")
+	public void put(@BeanParam BeanRequest bean, InputStream body, @Suspended AsyncResponse response) {
+		async(response, bean, "put", getTable(bean.getObject()), () -> put(bean, bean.getSeries().count(body)));
+	}
+	
+	/**
+	 * Модифицировать запись таблицы. В параметрах запроса указываются либо только значения полей первичного
+	 * ключа таблицы и присутсвует тело запроса, либо все значения указываются в строке запроса, при этом, если
+	 * модифицируются поля первичного ключа, то указываются в адресной строке два занчения: первое - текущее
+	 * значение ключевого поля, второе - новое значение.
+	 * 
+	 * <p>
+	 * Пример запроса модификации записи с параметрами в адресной строке. Значение 101 ключевого поля st_id будет
+	 * заменено на значение 1  
+	 * <pre>
+	 * .../data/table/rp.structure_type?st_id=101&amp;st_id=1&amp;st_name=Test101
+	 * </pre>
+	 * 
+	 * Пример запроса модификации почтового адреса пользователя, параметры us_name и us_last - поля первичного
+	 * ключа таблицы rp.users, устанавливаемое значение почтового адреса передается в теле запроса   
+	 * <pre>
+	 * PUT .../data/table/rp.users?us_name=Иван&amp;us_last=Иванов HTTP/1.1
+	 * Accept: application/xml
+	 * Content-Language: ru
+	 * Content-Length: 40
+	 * Host: localhost:8080
+	 * Content-Type: application/json
+	 * 
+	 * [{"us_email":"I.Iivanov%40domain.ru"}]
+	 * </pre>
+	 * 
+	 * <p>
+	 * При определенном параметре {@code resource} и отсутствии параметров в адресной строке выполняется
+	 * пакетная модификация: каждая запись тела запроса содержит значения всех полей первичного ключа
+	 * и устанавливаемые значения полей, все записи должны иметь одинаковый набор полей. Записи модифицируются
+	 * пакетным выполнением одного запроса UPDATE порциями размером {@code batchSize} в одной транзакции.
+	 * Отсутствие записи не является ошибкой, значения ключей ненайденных записей выдаются в результате 
+	 * <pre>
+	 * PUT .../data/table/rp.users HTTP/1.1
+	 * Content-Type: application/json
+	 * 
+	 * [{"us_name":"Иван","us_last":"Иванов","us_email":"ivanov@domain.ru"},
+	 *  {"us_name":"Петр","us_last":"Петров","us_email":"petrov@domain.ru"}]
+	 * </pre>
+	 * 
+	 * Результат пакетной модификации, запись с ключом (Петр, Петров) не найдена
+	 * <pre>
+	 * {"query":"UPDATE","result":1,"timer":3,"notFound":[{"us_name":"Петр","us_last":"Петров"}]}
+	 * </pre>
+	 * 
+	 * Пример результата при ошибке в формате JSON, если указаны неверные значения ключевых полей.
+	 * Код ответа: 404  
+	 * <pre>
+	 * {
+	 *   "message": "Запись по полученным значениям ключа не найдена.",
+	 *   "code": "RST0019E",
+	 *   "cause": null
+	 * }
+	 * </pre>
+	 *  
+	 * @param bean параметры запроса
+	 * @param body тело запроса с уснанавливаемыми значениями полей записи
+	 * @throws RestException при возникновении ошибки
+	 */
+	public Response put(BeanRequest bean, InputStream body) throws RestException {
+		String table = getTable(bean.getObject());
+		String lang = bean.getLang();
+		ArrayList<String> key = getPrimary(table, lang);
+		ArrayList<String> set = new ArrayList<String>(); // устанавливаемые поля
+		ArrayList<String> where = new ArrayList<String>(); // поля условия WHERE
+		ArrayList<Object> parameters = new ArrayList<Object>();
+		MultivaluedMap<String, String> queryParamas = bean.getQueryParams(); 
+		boolean notUsedBody = true;
+		RecordReader reader = getReader(bean, body);
+		if (queryParamas.size() == 0 && resource != null) {
+			// значения полей первичного ключа определены в записях тела запроса
+			return Response.ok(update(bean, table, key, reader)).build();
+		}
+		HashMap<String, Object> record = next(reader, lang);
+		if (record != null) {
+			if (next(reader, lang) == null) {
+				notUsedBody = false;
+				for (String name : record.keySet()) {
+					set.add(name);
+		                    parameters.add(record.get(name));       	
+				}
+			} else {
+            			// Для оператора UPDATE не допустимо определять в теле запроса более одной записи.
+				throw new RestException("RST0010E", null, lang);
+			}
+		}
+		if (queryParamas.size() > 0) {
+			ArrayList<String> keyWhere = new ArrayList<String>(); // добавленные в условие WHERE значения первичного ключа 
+			for (String name : queryParamas.keySet()) {
+            			String lowerName = name.toLowerCase();
+				List<String> query = queryParamas.get(name);
+				switch (query.size()) {
+				case 1:
+					if (key.contains(lowerName)) {
+						if (!keyWhere.contains(lowerName)) {
+							where.add(name);
+							parameters.add(query.get(0));
+							keyWhere.add(lowerName);
+						} else {
+			            			// Определение дублирующего значения {0} ключевого поля {1}
+							throw new RestException("RST0025E", new Object[] {query.toString(), name}, lang);
+						}
+					} else {
+						if (notUsedBody) {
+			                		parameters.add(set.size(), query.get(0));
+							set.add(name);
+						} else {
+			            			// Для поля {0}, не входящее в первичный ключ, недопустимо определять значение {1} при определении тела запроса
+							throw new RestException("RST0012E", new Object[] {name, query.toString()}, lang);
+						}
+					}
+					break;
+				case 2:
+					if (key.contains(lowerName)) {
+						if (!keyWhere.contains(lowerName)) {
+							where.add(name); // первое значение поля ключа - текущее значение
+			                		parameters.add(query.get(0));
+							keyWhere.add(lowerName);
+						} else {
+			            			// Определение дублирующего значения {0} ключевого поля {1}
+							throw new RestException("RST0025E", new Object[] {query.toString(), name}, lang);
+						}
+						if (notUsedBody) {
 							// второе значение поля ключа - устанавливаемое значение
-			            			if (secondary) {
-			        				builder.append(", ");
-			            			} else {
-			            				secondary = true;
-			            			}
-							builder.append(name).append(" = ?");
-			               			parameters.add(set, query.get(1));
-			                		set++;
+			               			parameters.add(set.size(), query.get(1));
+							set.add(name);
 						} else {
 			            			// Для поля {0}, входящее в первичный ключ, указано более одного значения {1} при определении тела запроса
 			            			throw new RestException("RST0011E", new Object[] {name, query.toString()}, lang);
@@ -518,10 +1657,17 @@ public class TableService extends Application {
         		// Значения полей первичного ключа не определены
 	    		throw new RestException("RST0014E", null, lang);
 		}
-		builder.append(" WHERE ").append(where);
+		String sql = getSql(bean.getTrace(), "UPDATE", table, appendKey(appendKey(new StringBuilder(), set), where), () -> {
+			StringBuilder builder = new StringBuilder();
+			builder.append("UPDATE ").append(table).append(" SET ");
+			appendAssignments(builder, set, ", ");
+			builder.append(" WHERE ");
+			appendAssignments(builder, where, " AND ");
+			return builder.toString();
+		});
 		BeanResponse beanResponse;
 		try {
-			beanResponse = query(builder.toString(), parameters);
+			beanResponse = query(table, sql, parameters, bean.getTrace());
 		} catch (Exception e) {
 			throw new RestException("RST0013E", null, e, lang);
 		}
@@ -532,6 +1678,163 @@ public class TableService extends Application {
 		return Response.ok(beanResponse).build();
 	}
 	
+	/**
+	 * Модифицировать записи тела запроса пакетным выполнением запроса UPDATE в одной транзакции. Набор полей
+	 * запроса определяется первой записью, записи читаются из тела запроса последовательно. Записи, не найденные
+	 * по значениям ключа, не прерывают выполнение и выдаются в результате.
+	 * 
+	 * @param bean параметры запроса
+	 * @param table имя таблицы
+	 * @param key поля первичного ключа таблицы
+	 * @param reader чтение записей тела запроса
+	 * @return суммарное число модифицированных записей и значения ключей ненайденных записей
+	 * @throws RestException возникшая ошибка
+	 */
+	private BeanResponseBulk update(BeanRequest bean, String table, ArrayList<String> key, RecordReader reader) throws RestException {
+		String lang = bean.getLang();
+		HashMap<String, Object> first = next(reader, lang);
+		if (first == null) {
+        		// Значения полей первичного ключа не определены
+	    		throw new RestException("RST0014E", null, lang);
+		}
+		ArrayList<String> names = new ArrayList<String>(); // поля записи в порядке параметров запроса
+		ArrayList<String> keyNames = new ArrayList<String>(); // поля записи, входящие в первичный ключ 
+		String sql = getUpdateSql(bean.getTrace(), table, key, first.keySet(), names, keyNames, lang);
+		ArrayList<HashMap<String, Object>> records = new ArrayList<HashMap<String, Object>>();
+		records.add(first);
+		ArrayList<HashMap<String, Object>> notFound = new ArrayList<HashMap<String, Object>>();
+		long timer = System.currentTimeMillis();
+		int count;
+		try {
+			count = Transaction.execute(getDataSource(), connection -> {
+				try (BatchStatement statement = new BatchStatement(connection, sql, batchSize)) {
+					return update(statement, names, keyNames, records, reader, notFound, lang);
+				}
+			});
+		} catch (RestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException("RST0013E", null, e, lang);
+		}
+		modified(table);
+		BeanResponseBulk beanResponse = new BeanResponseBulk("UPDATE", count);
+		beanResponse.setNotFound(notFound);
+		beanResponse.setTimer(System.currentTimeMillis() - timer);
+		return beanResponse;
+	}
+	
+	/**
+	 * Сформировать запрос модификации записи по значениям первичного ключа для набора полей записи.
+	 * 
+	 * @param trace время выполнения этапов обработки запроса
+	 * @param table имя таблицы
+	 * @param key поля первичного ключа таблицы
+	 * @param fields поля записи
+	 * @param names заполняемый список полей записи в порядке параметров запроса
+	 * @param keyNames заполняемый список полей записи, входящих в первичный ключ
+	 * @param lang язык локализации
+	 * @return запрос UPDATE
+	 * @throws RestException поле не определено в таблице или запись не содержит полей ключа или устанавливаемых полей
+	 */
+	private String getUpdateSql(Trace trace, String table, ArrayList<String> key, Collection<String> fields, ArrayList<String> names,
+			ArrayList<String> keyNames, String lang) throws RestException {
+		ArrayList<String> set = new ArrayList<String>(); // устанавливаемые поля
+		ArrayList<String> where = new ArrayList<String>(); // поля условия WHERE
+		for (String name : fields) {
+			String column = getColumn(table, name, lang);
+			if (key.contains(column.toLowerCase())) {
+				where.add(column);
+				keyNames.add(name);
+			} else {
+				set.add(column);
+				names.add(name);
+			}
+		}
+		if (set.isEmpty() || where.size() != key.size()) {
+			// Запись {0} тела запроса должна содержать значения полей первичного ключа {1} и устанавливаемые значения полей
+			throw new RestException("RST0035E", new Object[] {1, key.toString()}, lang);
+		}
+		names.addAll(keyNames);
+		return getSql(trace, "UPDATE", table, appendKey(appendKey(new StringBuilder(), set), where), () -> {
+			StringBuilder builder = new StringBuilder();
+			builder.append("UPDATE ").append(table).append(" SET ");
+			appendAssignments(builder, set, ", ");
+			builder.append(" WHERE ");
+			appendAssignments(builder, where, " AND ");
+			return builder.toString();
+		});
+	}
+	
+	/**
+	 * Выполнить пакетный запрос модификации для каждой записи. Сначала обрабатываются уже прочитанные записи,
+	 * затем записи, последовательно читаемые из тела запроса.
+	 * 
+	 * @param statement пакетный запрос UPDATE
+	 * @param names поля записи в порядке параметров запроса
+	 * @param keyNames поля записи, входящие в первичный ключ
+	 * @param records прочитанные записи, не пустой список
+	 * @param reader чтение остальных записей тела запроса или {@code null}
+	 * @param notFound значения ключей ненайденных записей
+	 * @param lang язык локализации
+	 * @return суммарное число модифицированных записей
+	 * @throws Exception ошибка выполнения или чтения тела запроса
+	 */
+	private int update(BatchStatement statement, ArrayList<String> names, ArrayList<String> keyNames, ArrayList<HashMap<String, Object>> records,
+			RecordReader reader, ArrayList<HashMap<String, Object>> notFound, String lang) throws Exception {
+		ArrayList<Object> parameters = new ArrayList<Object>(names.size());
+		ArrayList<HashMap<String, Object>> keys = new ArrayList<HashMap<String, Object>>(); // ключи записей порции
+		int index = 0;
+		HashMap<String, Object> record = records.get(0);
+		while (record != null) {
+			index++;
+			if (record.size() != names.size() || !record.keySet().containsAll(names)) {
+				// Поля записи {0} не совпадают с полями первой записи {1}
+				throw new RestException("RST0030E", new Object[] {index, names.toString()}, lang);
+			}
+			parameters.clear();
+			for (String name : names) {
+				parameters.add(record.get(name));
+			}
+			HashMap<String, Object> values = new HashMap<String, Object>();
+			for (String name : keyNames) {
+				values.put(name, record.get(name));
+			}
+			keys.add(values);
+			addNotFound(statement.add(parameters), keys, notFound);
+			record = index < records.size() ? records.get(index) : reader == null ? null : next(reader, lang);
+		}
+		addNotFound(statement.flush(), keys, notFound);
+		return statement.getCount();
+	}
+	
+	/**
+	 * Выбрать значения ключей записей выполненной порции, по которым записи не найдены.
+	 * 
+	 * @param result число записей, обработанных каждым набором параметров порции, {@code null} - порция не выполнялась
+	 * @param keys значения ключей записей порции, после выбора список очищается
+	 * @param notFound значения ключей ненайденных записей
+	 */
+	private static void addNotFound(int[] result, ArrayList<HashMap<String, Object>> keys, ArrayList<HashMap<String, Object>> notFound) {
+		if (result == null) return;
+		for (int index = 0; index < result.length; index++) {
+			if (result[index] == 0) notFound.add(keys.get(index));
+		}
+		keys.clear();
+	}
+	
+	/**
+	 * Асинхронное выполнение метода {@link #delete(BeanRequest, InputStream)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса
+	 * @param response асинхронный ответ
+	 */
+	@DELETE
+	@Path("table/{object}")
+	public void delete(@BeanParam BeanRequest bean, InputStream body, @Suspended AsyncResponse response) {
+		async(response, bean, "delete", getTable(bean.getObject()), () -> delete(bean, bean.getSeries().count(body)));
+	}
+	
 	/**
 	 * Удалить запись таблицы. В параметрах запроса указываются значения полей первичного ключа.
 	 * 
@@ -540,59 +1843,94 @@ public class TableService extends Application {
 	 * .../data/table/rp.structure_type?st_id=43
 	 * </pre>
 	 * 
+	 * <p>
+	 * При определенном параметре {@code resource} допускается удаление множества записей в одной транзакции.
+	 * Значения ключей указываются либо повторяющимися параметрами запроса (число значений всех полей ключа
+	 * должно совпадать, i-е значения полей образуют i-й ключ), либо, при отсутствии параметров запроса,
+	 * записями тела запроса, содержащими значения полей первичного ключа. Для ключа из одного поля записи
+	 * удаляются порциями размером {@code batchSize} запросом {@code DELETE ... WHERE key IN (...)}, для составного
+	 * ключа - пакетным выполнением запроса {@code DELETE ... WHERE key1 = ? AND key2 = ?}. Результат содержит
+	 * суммарное число удаленных записей, отсутствие записей не является ошибкой 
+	 * <pre>
+	 * .../data/table/rp.structure_type?st_id=43&amp;st_id=44&amp;st_id=45
+	 * 
+	 * DELETE .../data/table/rp.users HTTP/1.1
+	 * Content-Type: application/json
+	 * 
+	 * [{"us_name":"Иван","us_last":"Иванов"},{"us_name":"Петр","us_last":"Петров"}]
+	 * </pre>
+	 * 
 	 * @param bean параметры запроса
+	 * @param body тело запроса со значениями ключей удаляемых записей, используется при отсутствии параметров запроса
 	 * 
 	 * @throws RestException ошибка, возникшая при выпрлнении запроса 
 	 */
-	@DELETE
-	@Path("table/{object}")
-	public Response delete(@BeanParam BeanRequest bean) throws RestException {
+	public Response delete(BeanRequest bean, InputStream body) throws RestException {
 		String table = getTable(bean.getObject());
 		String lang = bean.getLang();
-		ArrayList<String> key = primary.get(table);
-		if (key == null) {
-			// получить первичный ключ таблицы 
-			key = getPrimaryKeys(table, bean.getLang());
-			primary.put(table, key);
-		}
-		StringBuilder builder = new StringBuilder();
+		ArrayList<String> key = getPrimary(table, lang);
+		ArrayList<String> where = new ArrayList<String>(); // поля условия WHERE
 		ArrayList<Object> parameters = new ArrayList<Object>();
-		builder.append("DELETE FROM ").append(table).append(" WHERE ");
 		MultivaluedMap<String, String> queryParamas = bean.getQueryParams(); 
 		if (queryParamas.size() > 0 ) {
 			if (queryParamas.size() == key.size()) {
-				boolean secondary = false;
+				int count = queryParamas.values().iterator().next().size(); // число значений ключа
 				for (String name : queryParamas.keySet()) {
 		            		List<String> query = queryParamas.get(name);
-			            	if (query.size() == 1) {
-    						if (key.contains(name.toLowerCase())) {
-    							if (secondary) {
-    		        					builder.append(" AND ");
-    		            				} else {
-    		            					secondary = true;
-    		            				}
-    							builder.append(name).append(" = ?");
-    							parameters.add(query.get(0));       	
-    						} else {
-    		            				// Поле {0} не входит в первичный ключ таблицы {1}
-    		            				throw new RestException("RST0015E", new Object[] {name, table}, lang);
-    						}	
-			            	} else {
-						// Определено более одного значения для поля {0} первичного ключа 
-			            		throw new RestException("RST0017E", new Object[] {name}, lang);
-		        	    	}
+					if (!key.contains(name.toLowerCase())) {
+    		            			// Поле {0} не входит в первичный ключ таблицы {1}
+    		            			throw new RestException("RST0015E", new Object[] {name, table}, lang);
+					}
+			            	if (query.size() != count) {
+						// Число значений {1} поля {0} первичного ключа не совпадает с числом значений {2} других полей ключа
+			            		throw new RestException("RST0036E", new Object[] {name, query.size(), count}, lang);
+			            	}
+					where.add(name);
+					parameters.add(query.get(0));       	
+				}
+				if (count > 1) {
+					if (resource == null) {
+						// Источник данных БД не определен (параметр resource)
+						throw new RestException("RST0031E", null, lang);
+					}
+					ArrayList<HashMap<String, Object>> records = new ArrayList<HashMap<String, Object>>(count);
+					for (int index = 0; index < count; index++) {
+						HashMap<String, Object> record = new HashMap<String, Object>();
+						for (String name : where) {
+							record.put(name, queryParamas.get(name).get(index));
+						}
+						records.add(record);
+					}
+					return Response.ok(delete(table, key, records, null, lang)).build();
 				}
 			} else {
             			// Число параметров {0} не совпадает с числом полей первичного ключа {1} таблицы {2} 
             			throw new RestException("RST0016E", new Object[] {queryParamas.size(), key.size(), table}, lang);
 			}
 		} else {
-        		// Значения полей первичного ключа не определены
-        		throw new RestException("RST0014E", null, lang);
+			HashMap<String, Object> record = null;
+			RecordReader reader = null;
+			if (resource != null && body != null) {
+				reader = getReader(bean, body);
+				record = next(reader, lang);
+			}
+			if (record == null) {
+	        		// Значения полей первичного ключа не определены
+	        		throw new RestException("RST0014E", null, lang);
+			}
+			ArrayList<HashMap<String, Object>> records = new ArrayList<HashMap<String, Object>>();
+			records.add(record);
+			return Response.ok(delete(table, key, records, reader, lang)).build();
 		}
+		String sql = getSql(bean.getTrace(), "DELETE", table, appendKey(new StringBuilder(), where), () -> {
+			StringBuilder builder = new StringBuilder();
+			builder.append("DELETE FROM ").append(table).append(" WHERE ");
+			appendAssignments(builder, where, " AND ");
+			return builder.toString();
+		});
 		BeanResponse beanResponse;
 		try {
-			beanResponse = query(builder.toString(), parameters);
+			beanResponse = query(table, sql, parameters, bean.getTrace());
 		} catch (Exception e) {
 			throw new RestException("RST0006E", null, e, lang);
 		}
@@ -604,16 +1942,168 @@ public class TableService extends Application {
 	}
 	
 	/**
-	 * Выполнить произвольный запрос SELECT класса SQL генератора.
+	 * Удалить записи по значениям ключей в одной транзакции. Набор полей ключа определяется первой записью.
+	 * Сначала обрабатываются уже прочитанные записи, затем записи, последовательно читаемые из тела запроса.
 	 * 
-	 * <p>
-	 * Параметры заголовка HTTP запроса
-	 * 
-	 * <ul>
-	 * <li>Accept - тип данных ответа, может принимать значения application/json или application/xml
-	 * <li>Content-Language - язык возвращаемых сообщений, по умолчанию ru
-	 * </ul>
-	 * <pre>
+	 * @param table имя таблицы
+	 * @param key поля первичного ключа таблицы
+	 * @param records прочитанные значения ключей, не пустой список
+	 * @param reader чтение остальных записей тела запроса или {@code null}
+	 * @param lang язык локализации
+	 * @return суммарное число удаленных записей
+	 * @throws RestException возникшая ошибка
+	 */
+	private BeanResponse delete(String table, ArrayList<String> key, ArrayList<HashMap<String, Object>> records, RecordReader reader, String lang) throws RestException {
+		ArrayList<String> names = new ArrayList<String>(records.get(0).keySet()); // поля записей
+		ArrayList<String> where = getKeyColumns(table, key, names, lang); // поля условия WHERE
+		long timer = System.currentTimeMillis();
+		int count;
+		try {
+			count = Transaction.execute(getDataSource(), connection -> {
+				ArrayList<Object> parameters = new ArrayList<Object>();
+				int index = 0;
+				HashMap<String, Object> record = records.get(0);
+				if (where.size() == 1) {
+					// ключ из одного поля - удаление порциями запросом DELETE ... WHERE key IN (...)
+					String name = names.get(0);
+					int total = 0;
+					PreparedStatement statement = null; // запрос для порции полного размера
+					try {
+						while (record != null) {
+							index++;
+							if (record.size() != 1 || !record.containsKey(name)) {
+								// Поля записи {0} не совпадают с полями первой записи {1}
+								throw new RestException("RST0030E", new Object[] {index, names.toString()}, lang);
+							}
+							parameters.add(record.get(name));
+							if (parameters.size() == batchSize) {
+								if (statement == null) statement = connection.prepareStatement(getDeleteIn(table, where.get(0), batchSize));
+								total += executeUpdate(statement, parameters);
+								parameters.clear();
+							}
+							record = index < records.size() ? records.get(index) : reader == null ? null : next(reader, lang);
+						}
+					} finally {
+						if (statement != null) statement.close();
+					}
+					if (parameters.size() > 0) {
+						try (PreparedStatement last = connection.prepareStatement(getDeleteIn(table, where.get(0), parameters.size()))) {
+							total += executeUpdate(last, parameters);
+						}
+					}
+					return total;
+				}
+				try (BatchStatement statement = new BatchStatement(connection, getDeleteSql(table, where), batchSize)) {
+					return execute(statement, names, records, reader, lang);
+				}
+			});
+		} catch (RestException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RestException("RST0006E", null, e, lang);
+		}
+		modified(table);
+		BeanResponse beanResponse = new BeanResponse("DELETE", count);
+		beanResponse.setTimer(System.currentTimeMillis() - timer);
+		return beanResponse;
+	}
+	
+	/**
+	 * Получить поля первичного ключа, соответствующие полям записи.
+	 * 
+	 * @param table имя таблицы
+	 * @param key поля первичного ключа таблицы
+	 * @param names поля записи
+	 * @param lang язык локализации
+	 * @return поля ключа в порядке полей записи
+	 * @throws RestException поле записи не входит в первичный ключ или определены не все поля ключа
+	 */
+	private ArrayList<String> getKeyColumns(String table, ArrayList<String> key, List<String> names, String lang) throws RestException {
+		ArrayList<String> columns = new ArrayList<String>(names.size());
+		for (String name : names) {
+			String column = getColumn(table, name, lang);
+			if (!key.contains(column.toLowerCase())) {
+	            		// Поле {0} не входит в первичный ключ таблицы {1}
+	            		throw new RestException("RST0015E", new Object[] {name, table}, lang);
+			}
+			columns.add(column);
+		}
+		if (columns.size() != key.size()) {
+			// Число параметров {0} не совпадает с числом полей первичного ключа {1} таблицы {2} 
+			throw new RestException("RST0016E", new Object[] {columns.size(), key.size(), table}, lang);
+		}
+		return columns;
+	}
+	
+	/**
+	 * Сформировать запрос удаления записи по значениям полей ключа.
+	 * 
+	 * @param table имя таблицы
+	 * @param where поля ключа
+	 * @return запрос {@code DELETE FROM table WHERE key1 = ? AND ...}
+	 */
+	private String getDeleteSql(String table, List<String> where) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("DELETE FROM ").append(table).append(" WHERE ");
+		appendAssignments(builder, where, " AND ");
+		return builder.toString();
+	}
+	
+	/**
+	 * Сформировать запрос удаления записей по списку значений ключа из одного поля.
+	 * 
+	 * @param table имя таблицы
+	 * @param column поле ключа
+	 * @param size число значений ключа
+	 * @return запрос {@code DELETE FROM table WHERE column IN (?, ...)}
+	 */
+	private static String getDeleteIn(String table, String column, int size) {
+		StringBuilder builder = new StringBuilder(32 + table.length() + column.length() + size * 3);
+		builder.append("DELETE FROM ").append(table).append(" WHERE ").append(column).append(" IN (");
+		for (int index = 0; index < size; index++) {
+			builder.append(index == 0 ? "?" : ", ?");
+		}
+		return builder.append(')').toString();
+	}
+	
+	/**
+	 * Выполнить подготовленный запрос модификации данных.
+	 * 
+	 * @param statement подготовленный запрос
+	 * @param parameters значения параметров запроса
+	 * @return число обработанных записей
+	 * @throws SQLException ошибка выполнения
+	 */
+	private static int executeUpdate(PreparedStatement statement, List<Object> parameters) throws SQLException {
+		for (int index = 0; index < parameters.size(); index++) {
+			statement.setObject(index + 1, parameters.get(index));
+		}
+		return statement.executeUpdate();
+	}
+	
+	/**
+	 * Асинхронное выполнение метода {@link #select(BeanRequest)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param response асинхронный ответ
+	 */
+	@GET
+	@Path("query/{object}")
+	public void select(@BeanParam BeanRequest bean, @Suspended AsyncResponse response) {
+		async(response, bean, "select", getNames(bean.getObject())[0], () -> select(bean));
+	}
+	
+	/**
+	 * Выполнить произвольный запрос SELECT класса SQL генератора.
+	 * 
+	 * <p>
+	 * Параметры заголовка HTTP запроса
+	 * 
+	 * <ul>
+	 * <li>Accept - тип данных ответа, может принимать значения application/json или application/xml
+	 * <li>Content-Language - язык возвращаемых сообщений, по умолчанию ru
+	 * </ul>
+	 * <pre>
 	 * http://host:port/name_context/map_servlet/data/query/{class.method}?параметры_запроса
 	 * </pre>
 	 * где:<br>
@@ -636,48 +2126,276 @@ public class TableService extends Application {
 	 * 
 	 * @throws RestException сообщение об ошибке при ее возникновении
 	 */
-	@GET
-	@Path("query/{object}")
-	public ArrayList<HashMap<String, Object>> select(@BeanParam BeanRequest bean) throws RestException {
+	public Response select(BeanRequest bean) throws RestException {
 		String[] names = getNames(bean.getObject());
 		String lang = bean.getLang();
 		if (names.length != 2) {
 			throw new RestException("RST0021E", null, lang);
 		}
-		Object generator = getObject(names[0], lang);
+		MethodHandle method = getMethod(names, GeneratorRegistry.SELECT, lang);
+		EntityTag tag = getVersionTag(bean.getObject(), false, bean);
+		Response notModified = notModified(tag, bean);
+		if (notModified != null) return notModified;
 		try {
 			ArrayList<Object> parameters = new ArrayList<Object>();
-			Method method = generator.getClass().getMethod(names[1], String.class, MultivaluedMap.class, ArrayList.class);
-			String sql = (String) method.invoke(generator, lang, bean.getQueryParams(), parameters);
-			return query(sql, parameters, lang);
-		} catch (InvocationTargetException e) {
-			throw new RestException("RST0001E", null, e.getTargetException(), lang);
-		} catch (Exception e) {
+			long begin = bean.getTrace().begin();
+			String sql = (String) method.invokeExact(lang, bean.getQueryParams(), parameters);
+			bean.getTrace().end(Trace.SQL, begin);
+			return query(bean.getObject(), sql, parameters, tag, bean);
+		} catch (Throwable e) {
 			throw new RestException("RST0001E", null, e, lang);
 		}
 	}
 	
+	/**
+	 * Асинхронное выполнение метода {@link #execute(BeanRequest, InputStream)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса
+	 * @param response асинхронный ответ
+	 */
 	@POST
 	@Path("query/{object}")
-	public Response execute(@BeanParam BeanRequest bean, ArrayList<HashMap<String, Object>> records) throws RestException {
+	public void execute(@BeanParam BeanRequest bean, InputStream body, @Suspended AsyncResponse response) {
+		async(response, bean, "execute", getNames(bean.getObject())[0], () -> execute(bean, bean.getSeries().count(body)));
+	}
+	
+	public Response execute(BeanRequest bean, InputStream body) throws RestException {
 		String[] names = getNames(bean.getObject());
 		String lang = bean.getLang();
 		if (names.length != 2) {
 			throw new RestException("RST0021E", null, lang);
 		}
-		Object generator = getObject(names[0], lang);
+		// генератор запроса получает записи тела запроса списком
+		ArrayList<HashMap<String, Object>> records = null;
+		RecordReader reader = getReader(bean, body);
+		HashMap<String, Object> record = next(reader, lang);
+		while (record != null) {
+			if (records == null) records = new ArrayList<HashMap<String, Object>>();
+			records.add(record);
+			record = next(reader, lang);
+		}
+		MethodHandle method = getMethod(names, GeneratorRegistry.EXECUTE, lang);
 		try {
 			ArrayList<Object> parameters = new ArrayList<Object>();
-			Method method = generator.getClass().getMethod(names[1], String.class, MultivaluedMap.class, ArrayList.class, ArrayList.class);
-			String sql = (String) method.invoke(generator, lang, bean.getQueryParams(), records, parameters);
-			return Response.ok(query(sql, parameters)).build();
-		} catch (InvocationTargetException e) {
-			throw new RestException("RST0007E", null, e.getTargetException(), lang);
+			long begin = bean.getTrace().begin();
+			String sql = (String) method.invokeExact(lang, bean.getQueryParams(), records, parameters);
+			bean.getTrace().end(Trace.SQL, begin);
+			// запрос генератора может модифицировать любую таблицу
+			return Response.ok(query(null, sql, parameters, bean.getTrace())).build();
+		} catch (Throwable e) {
+			throw new RestException("RST0007E", null, e, lang);
+		}
+	}
+	
+	/**
+	 * Асинхронное выполнение метода {@link #batch(BeanRequest, InputStream)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса
+	 * @param response асинхронный ответ
+	 */
+	@POST
+	@Path("batch")
+	public void batch(@BeanParam BeanRequest bean, InputStream body, @Suspended AsyncResponse response) {
+		async(response, bean, "batch", null, () -> batch(bean, bean.getSeries().count(body)));
+	}
+	
+	/**
+	 * Выполнить последовательность операций над таблицами и вызовов методов генераторов SQL запросов
+	 * на одном соединении в одной транзакции. Тело запроса в формате JSON содержит массив операций
+	 * (см. {@link BatchOperation}): post - вставка записей, put - модификация записей по значениям первичного
+	 * ключа, delete - удаление записей по значениям первичного ключа, upsert - вставка записей с модификацией
+	 * существующих, execute - выполнение запроса метода генератора SQL запросов
+	 * <pre>
+	 * POST .../data/batch
+	 * 
+	 * [{"operation":"post","table":"rp.users","records":[{"us_name":"Иван","us_last":"Иванов","us_email":"ii@mail.ru"}]},
+	 *  {"operation":"put","table":"rp.structure_type","records":[{"st_id":42,"st_name":"Test42"}]},
+	 *  {"operation":"delete","table":"rp.structure_type","records":[{"st_id":43}]},
+	 *  {"operation":"execute","query":"Users.rename","params":{"name":"Иван"}}]
+	 * </pre>
+	 * 
+	 * <p>
+	 * Запросы всех операций формируются до начала транзакции, ошибка определения любой операции отменяет
+	 * выполнение пакета. Записи операций таблиц выполняются пакетно порциями размером {@code batchSize},
+	 * подготовленный запрос используется повторно всеми операциями с одинаковым текстом запроса. При ошибке
+	 * выполнения любой операции транзакция откатывается. Результат - массив результатов операций в порядке
+	 * их определения, результат операции put содержит значения ключей ненайденных записей. Требует определения
+	 * параметра {@code resource}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param body тело запроса с массивом операций
+	 * @return массив результатов операций
+	 * @throws RestException ошибка определения или выполнения операции
+	 */
+	public Response batch(BeanRequest bean, InputStream body) throws RestException {
+		String lang = bean.getLang();
+		if (resource == null) {
+			// Источник данных БД не определен (параметр resource)
+			throw new RestException("RST0031E", null, lang);
+		}
+		ArrayList<BatchOperation> operations = new ArrayList<BatchOperation>();
+		RecordReader reader = getReader(bean, body);
+		HashMap<String, Object> item = next(reader, lang);
+		while (item != null) {
+			try {
+				operations.add(new BatchOperation(item));
+			} catch (IllegalArgumentException e) {
+				// Недопустимое значение {1} определения операции {0} пакета
+				throw new RestException("RST0038E", new Object[] {operations.size() + 1, e.getMessage()}, lang);
+			}
+			item = next(reader, lang);
+		}
+		if (operations.isEmpty()) {
+			throw new RestException("RST0004E", null, lang);
+		}
+		for (BatchOperation operation : operations) {
+			prepare(operation, bean);
+		}
+		ArrayList<BeanResponse> results = new ArrayList<BeanResponse>(operations.size());
+		Trace trace = bean.getTrace();
+		long begin = trace.begin();
+		try {
+			Transaction.execute(getDataSource(), connection -> {
+				// подготовленные запросы по тексту запроса
+				HashMap<String, PreparedStatement> statements = new HashMap<String, PreparedStatement>();
+				try {
+					for (int index = 0; index < operations.size(); index++) {
+						long timer = System.currentTimeMillis();
+						BeanResponse result;
+						try {
+							result = execute(connection, statements, operations.get(index), lang);
+						} catch (RestException e) {
+							throw e;
+						} catch (Exception e) {
+							// При выполнении операции {0} пакета возникла ошибка, транзакция откачена
+							throw new RestException("RST0039E", new Object[] {index + 1}, e, lang);
+						}
+						result.setTimer(System.currentTimeMillis() - timer);
+						results.add(result);
+					}
+				} finally {
+					for (PreparedStatement statement : statements.values()) {
+						statement.close();
+					}
+				}
+				return results;
+			});
+		} catch (RestException e) {
+			throw e;
 		} catch (Exception e) {
 			throw new RestException("RST0007E", null, e, lang);
+		} finally {
+			trace.end(Trace.EXECUTE, begin);
+		}
+		boolean unknown = false; // запрос генератора может модифицировать любую таблицу
+		for (BatchOperation operation : operations) {
+			if ("execute".equals(operation.getOperation())) {
+				unknown = true;
+			} else {
+				modified(getTable(operation.getObject()));
+			}
+		}
+		if (unknown) modified(null);
+		return Response.ok(new GenericEntity<ArrayList<BeanResponse>>(results) {}).build();
+	}
+	
+	/**
+	 * Сформировать запрос операции пакета.
+	 * 
+	 * @param operation операция пакета
+	 * @param bean параметры запроса
+	 * @throws RestException ошибка определения операции
+	 */
+	private void prepare(BatchOperation operation, BeanRequest bean) throws RestException {
+		String lang = bean.getLang();
+		ArrayList<String> names = operation.getNames();
+		if ("execute".equals(operation.getOperation())) {
+			MethodHandle method = getMethod(getNames(operation.getObject()), GeneratorRegistry.EXECUTE, lang);
+			try {
+				operation.setSql((String) method.invokeExact(lang, operation.getParams(), operation.getRecords(), operation.getParameters()));
+			} catch (Throwable e) {
+				throw new RestException("RST0007E", null, e, lang);
+			}
+			return;
+		}
+		String table = getTable(operation.getObject());
+		HashMap<String, Object> first = operation.getRecords().get(0);
+		switch (operation.getOperation()) {
+		case "post":
+			ArrayList<String> columns = new ArrayList<String>();
+			for (String name : first.keySet()) {
+				names.add(name);
+				columns.add(getColumn(table, name, lang));
+			}
+			operation.setSql(getInsertSql(table, columns));
+			break;
+		case "put":
+			operation.setSql(getUpdateSql(bean.getTrace(), table, getPrimary(table, lang), first.keySet(), names, operation.getKeyNames(), lang));
+			break;
+		case "delete":
+			names.addAll(first.keySet());
+			operation.setSql(getDeleteSql(table, getKeyColumns(table, getPrimary(table, lang), names, lang)));
+			break;
+		default: // upsert, запрос формируется в синтаксисе СУБД соединения
+			names.addAll(first.keySet());
+			getUpsertColumns(table, getPrimary(table, lang), names, operation.getColumns(), operation.getKeyNames(), lang);
+		}
+	}
+	
+	/**
+	 * Выполнить операцию пакета. Подготовленный запрос выбирается из подготовленных ранее запросов
+	 * по тексту запроса.
+	 * 
+	 * @param connection соединение с БД
+	 * @param statements подготовленные запросы
+	 * @param operation операция пакета
+	 * @param lang язык локализации
+	 * @return результат операции
+	 * @throws Exception ошибка выполнения
+	 */
+	private BeanResponse execute(Connection connection, HashMap<String, PreparedStatement> statements, BatchOperation operation, String lang) throws Exception {
+		String sql = operation.getSql();
+		if (sql == null) {
+			sql = Upsert.getSql(connection, getTable(operation.getObject()), operation.getColumns(), operation.getKeyNames());
+		}
+		PreparedStatement prepared = statements.get(sql);
+		if (prepared == null) {
+			prepared = connection.prepareStatement(sql);
+			statements.put(sql, prepared);
+		}
+		BatchStatement statement = new BatchStatement(prepared, batchSize);
+		switch (operation.getOperation()) {
+		case "post":
+			return new BeanResponse("INSERT", execute(statement, operation.getNames(), operation.getRecords(), null, lang));
+		case "put":
+			ArrayList<HashMap<String, Object>> notFound = new ArrayList<HashMap<String, Object>>();
+			BeanResponseBulk beanResponse = new BeanResponseBulk("UPDATE", 
+					update(statement, operation.getNames(), operation.getKeyNames(), operation.getRecords(), null, notFound, lang));
+			beanResponse.setNotFound(notFound);
+			return beanResponse;
+		case "delete":
+			return new BeanResponse("DELETE", execute(statement, operation.getNames(), operation.getRecords(), null, lang));
+		case "upsert":
+			return new BeanResponse("UPSERT", execute(statement, operation.getNames(), operation.getRecords(), null, lang));
+		default: // execute
+			return new BeanResponse(sql.trim().split("\\s", 2)[0].toUpperCase(), executeUpdate(prepared, operation.getParameters()));
 		}
 	}
 	
+	/**
+	 * Асинхронное выполнение метода {@link #info(BeanRequest)}.
+	 * 
+	 * @param bean параметры запроса
+	 * @param response асинхронный ответ
+	 */
+	@GET
+	@Path("info/{object}")
+	public void info(@BeanParam BeanRequest bean, @Suspended AsyncResponse response) {
+		async(response, bean, "info", null, () -> info(bean));
+	}
+	
 	/**
 	 * Получить метаданные об объектах БД. Этот метод может быть полезен в среде разработки для получения
 	 * информации о необходимых параметрах запросов. В промышленных средах работу этого метода можно блокировать
@@ -734,9 +2452,7 @@ public class TableService extends Application {
 	 * @return результат выполнения запроса
 	 * @throws RestException ошибка выполнения запроса
 	 */
-	@GET
-	@Path("info/{object}")
-	public ArrayList<HashMap<String, Object>> info(@BeanParam BeanRequest bean) throws RestException {
+	public Response info(BeanRequest bean) throws RestException {
 		String lang = bean.getLang();
 		MultivaluedMap<String, String> query = bean.getQueryParams();
 		if (disableInfo) {
@@ -751,11 +2467,8 @@ public class TableService extends Application {
 			switch (method) {
 			case "getPrimaryKeys":
 				result = database.metadata("getPrimaryKeys", catalog, schema, table);
-				ArrayList<String> listFields = new ArrayList<String>();
-				while (result.next()) {
-					listFields.add(result.getString(4)); // имя колонки COLUMN_NAME
-				}
-				primary.replace(getTable(bean.getObject()), listFields);
+				// обновить поля первичного ключа при следующем обращении к таблице
+				metadata.invalidate(schema == null ? getTable(table) : schema + '.' + table);
 				result.beforeFirst();
 				break;
 			case "getColumns":
@@ -775,123 +2488,843 @@ public class TableService extends Application {
 			default:
 				throw new RestException("RST0024E", new Object[] {method}, lang);
 			}
-			return toArrayList(result);
+			return Response.ok(toRowTable(result, bean)).build();
 		} catch (Exception e) {
 			throw new RestException("RST0023E", new Object[] {method}, e, lang);
 		}
 		
 	}
 	
-	private ArrayList<String> getPrimaryKeys(String name, String lang) throws RestException {
+	/**
+	 * Проверить готовность сервиса. Прогрев сервиса начинается при запуске приложения (см. {@link #start()}):
+	 * выполняется параллельная загрузка метаданных таблиц, определенных параметром {@code warmupTables},
+	 * и классов генераторов SQL запросов, определенных параметром {@code warmupGenerators}. До завершения прогрева возвращается код ответа 503,
+	 * после завершения - число таблиц, метаданные которых загружены. Метод предназначен для проверки
+	 * готовности (readiness probe) после развертывания приложения.
+	 * 
+	 * <pre>
+	 * .../data/ready
+	 * </pre>
+	 * 
+	 * Пример тела ответа в формате JSON
+	 * <pre>
+	 * {"query":"READY","result":12,"timer":0}
+	 * </pre>
+	 * 
+	 * @param bean параметры запроса
+	 * @return результат прогрева
+	 */
+	@GET
+	@Path("ready")
+	public Response ready(@BeanParam BeanRequest bean) {
+		CompletableFuture<Integer> future = startWarmup();
+		if (!future.isDone()) {
+			return Response.status(Response.Status.SERVICE_UNAVAILABLE).header("Retry-After", 1).build();
+		}
+		return Response.ok(new BeanResponse("READY", future.join())).build();
+	}
+	
+	/**
+	 * Получить статистику использования кэша результатов запросов: для каждой таблицы и метода генератора,
+	 * определенных параметрами {@code cacheTables} и {@code cacheQueries}, - число результатов в кэше, число
+	 * попаданий, промахов и вытеснений.
+	 * 
+	 * <pre>
+	 * .../data/cache
+	 * </pre>
+	 * 
+	 * Пример тела ответа в формате JSON
+	 * <pre>
+	 * [{"name":"rp.structure_type","size":3,"hits":15230,"misses":41,"evictions":0}]
+	 * </pre>
+	 * 
+	 * @param bean параметры запроса
+	 * @return статистика использования кэша
+	 */
+	@GET
+	@Path("cache")
+	public Response cache(@BeanParam BeanRequest bean) {
+		RowTable statistics = getResults().getStatistics();
+		statistics.setColumnar(isColumnar(bean));
+		return Response.ok(statistics).build();
+	}
+	
+	/**
+	 * Получить метрики методов сервиса в текстовом формате Prometheus (см. {@link Metrics}): гистограммы времени
+	 * выполнения, число прочитанных и записанных записей, объем тела запроса и ответа и число ошибок по методу
+	 * сервиса и таблице (классу генератора SQL запросов), число ошибок по кодам ошибок, статистику использования
+	 * кэша результатов запросов и число объединенных запросов.
+	 * 
+	 * <pre>
+	 * .../data/metrics
+	 * </pre>
+	 * 
+	 * @return метрики
+	 */
+	@GET
+	@Path("metrics")
+	@Produces(MediaType.TEXT_PLAIN)
+	public Response metrics() {
+		String text = metrics.toText(getResults().getStatistics(), coalescer.getCoalesced());
+		return Response.ok(text, "text/plain; version=0.0.4; charset=utf-8").build();
+	}
+	
+	/**
+	 * Запустить сервис: начать прогрев, не дожидаясь первого обращения к сервису. Метод вызывается
+	 * при запуске приложения Jersey (см. {@link ru.funsys.app.rs.provider.ServiceLifecycle}).
+	 */
+	public void start() {
+		stopped = false;
+		startWarmup();
+	}
+	
+	/**
+	 * Остановить сервис: остановить исполнитель методов сервиса, чтобы его потоки не оставались после
+	 * остановки или повторного развертывания приложения. Метод вызывается при остановке приложения Jersey
+	 * (см. {@link ru.funsys.app.rs.provider.ServiceLifecycle}).
+	 */
+	public synchronized void stop() {
+		stopped = true;
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+	}
+	
+	/**
+	 * Начать прогрев сервиса, если он еще не начат. Если сервис не был запущен методом {@link #start()},
+	 * прогрев начинается при первом обращении к сервису. Ошибки прогрева не прерывают работу сервиса,
+	 * метаданные и генераторы, загрузка которых не удалась, загружаются при первом обращении.
+	 * 
+	 * @return прогрев сервиса
+	 */
+	private synchronized CompletableFuture<Integer> startWarmup() {
+		if (warmup != null) return warmup;
+		ArrayList<String> tables = split(warmupTables);
+		ArrayList<String> classes = split(warmupGenerators);
+		if (tables.isEmpty() && classes.isEmpty()) {
+			warmup = CompletableFuture.completedFuture(0);
+			return warmup;
+		}
+		AtomicInteger loaded = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, warmupThreads), runnable -> {
+			Thread thread = new Thread(runnable, "restdb-warmup");
+			thread.setDaemon(true);
+			return thread;
+		});
+		ArrayList<CompletableFuture<?>> tasks = new ArrayList<CompletableFuture<?>>();
+		for (String name : classes) {
+			tasks.add(CompletableFuture.runAsync(() -> generators.resolve(name), executor));
+		}
+		for (String name : tables) {
+			tasks.add(CompletableFuture.runAsync(() -> {
+				try {
+					for (String table : getTables(name)) {
+						if (!metadata.get(table, metadataTtl * 1000L).getColumns().isEmpty()) loaded.incrementAndGet();
+					}
+				} catch (Exception e) {
+					// Подавить исключение
+				}
+			}, executor));
+		}
+		warmup = CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[tasks.size()])).handle((result, e) -> {
+			executor.shutdown();
+			return loaded.get();
+		});
+		return warmup;
+	}
+	
+	/**
+	 * Получить полные имена таблиц по элементу списка {@code warmupTables}.
+	 * 
+	 * @param name полное имя таблицы или шаблон имен таблиц
+	 * @return полные имена таблиц
+	 * @throws Exception ошибка получения метаданных
+	 */
+	private ArrayList<String> getTables(String name) throws Exception {
 		ArrayList<String> list = new ArrayList<String>();
+		String[] names = splitTable(getTable(name));
+		if (names == null) return list;
+		if (names[1].equals("*")) names[1] = "%";
+		if (names[1].indexOf('%') < 0 && names[1].indexOf('_') < 0) {
+			list.add(getTable(name));
+			return list;
+		}
+		ResultSet result = database.metadata("getTables", null, names[0], names[1], new Object[] {null});
+		while (result.next()) {
+			String schema = result.getString(2); // TABLE_SCHEM
+			list.add(schema == null ? result.getString(3) : schema + '.' + result.getString(3)); // TABLE_NAME
+		}
+		return list;
+	}
+	
+	/**
+	 * Разделить значение параметра класса на элементы списка.
+	 * 
+	 * @param value значение параметра, элементы разделяются символом ';'
+	 * @return элементы списка
+	 */
+	private ArrayList<String> split(String value) {
+		ArrayList<String> list = new ArrayList<String>();
+		if (value == null) return list;
+		for (String item : value.split(";")) {
+			item = item.trim();
+			if (!item.isEmpty()) list.add(item);
+		}
+		return list;
+	}
+	
+	/**
+	 * Получить поля первичного ключа таблицы из кэша метаданных, при отсутствии - из метаданных БД.
+	 * 
+	 * @param table полное имя таблицы
+	 * @param lang язык локализации
+	 * @return поля первичного ключа
+	 * @throws RestException возникшая ошибка
+	 */
+	private ArrayList<String> getPrimary(String table, String lang) throws RestException {
+		return getTableMetadata(table, lang).getKey();
+	}
+	
+	/**
+	 * Получить поля таблицы из кэша метаданных, при отсутствии - из метаданных БД.
+	 * 
+	 * @param table полное имя таблицы
+	 * @param lang язык локализации
+	 * @return поля таблицы
+	 * @throws RestException возникшая ошибка
+	 */
+	private ArrayList<String> getColumns(String table, String lang) throws RestException {
+		return getTableMetadata(table, lang).getColumns();
+	}
+	
+	/**
+	 * Получить метаданные таблицы из кэша метаданных, при отсутствии или устаревании - из метаданных БД.
+	 * 
+	 * @param table полное имя таблицы
+	 * @param lang язык локализации
+	 * @return метаданные таблицы
+	 * @throws RestException возникшая ошибка
+	 */
+	private TableMetadata getTableMetadata(String table, String lang) throws RestException {
+		if (warmup == null) startWarmup();
+		if (splitTable(table) == null) {
+			// Ошибка определения имени таблицы {0}.
+			throw new RestException("RST0018E", new Object[] {table}, lang);
+		}
+		try {
+			return metadata.get(table, metadataTtl * 1000L);
+		} catch (Exception e) {
+			// Ошибка вызова сервиса.
+			throw new RestException("RST0007E", null, e, lang);
+		}
+	}
+	
+	/**
+	 * Загрузить метаданные таблицы из БД.
+	 * 
+	 * @param name полное имя таблицы
+	 * @return метаданные таблицы
+	 * @throws Exception ошибка получения метаданных
+	 */
+	private TableMetadata loadMetadata(String name) throws Exception {
+		String[] names = splitTable(name);
+		ArrayList<String> columns = new ArrayList<String>();
+		ArrayList<Integer> list = new ArrayList<Integer>();
+		ResultSet result = database.metadata("getColumns", null, names[0], names[1], null);
+		while (result.next()) {
+			columns.add(result.getString(4)); // имя колонки COLUMN_NAME
+			list.add(result.getInt(5)); // тип колонки DATA_TYPE
+		}
+		int[] types = new int[list.size()];
+		for (int index = 0; index < types.length; index++) {
+			types[index] = list.get(index);
+		}
+		ArrayList<String> key = new ArrayList<String>();
+		result = database.metadata("getPrimaryKeys", null, names[0], names[1]);
+		while (result.next()) {
+			key.add(result.getString(4)); // имя колонки COLUMN_NAME
+		}
+		return new TableMetadata(key, columns, types);
+	}
+	
+	/**
+	 * Разделить полное имя таблицы на имя схемы и имя таблицы.
+	 * 
+	 * @param name полное имя таблицы
+	 * @return имя схемы ({@code null}, если не указана) и имя таблицы или {@code null}, если имя таблицы неверное
+	 */
+	private String[] splitTable(String name) {
 		String[] args = name.replace('.', ' ').split(" ");
-		String schema;
-		String table;
 		switch (args.length) {
 		case 1:
-			schema = null;
-			table = args[0];
-			break;
+			return new String[] {null, args[0]};
 		case 2:
-			schema = args[0];
-			table = args[1];
-			break;
+			return args;
 		default:
-			// Ошибка определения имени таблицы {0}.
-        	throw new RestException("RST0018E", new Object[] {name}, lang);
+			return null;
 		}
-		ResultSet result;	
+	}
+	
+	/**
+	 * Получить метод класса SQL генератора, связанный с экземпляром класса.
+	 * 
+	 * @param names имя класса и имя метода
+	 * @param type тип метода {@link GeneratorRegistry#SELECT} или {@link GeneratorRegistry#EXECUTE}
+	 * @param lang язык локализации
+	 * @return метод генератора
+	 * @throws RestException класс или метод не найден
+	 */
+	private MethodHandle getMethod(String[] names, MethodType type, String lang) throws RestException {
+		if (warmup == null) startWarmup();
+		MethodHandle method = generators.getMethod(names[0], names[1], type);
+		if (method == null) {
+			if (generators.getGenerator(names[0]) == null) {
+				throw new RestException("RST0005E", new Object[] {names[0]}, lang, 404);
+			}
+			throw new RestException(type == GeneratorRegistry.SELECT ? "RST0001E" : "RST0007E", null,
+					new NoSuchMethodException(names[0] + '.' + names[1]), lang);
+		}
+		return method;
+	}
+	
+	/**
+	 * Выполнить SQL запрос SELECT. При установленном параметре {@code streaming} результат запроса
+	 * выдается потоком (см. {@link ResultStream}), кроме результатов, сохраняемых в кэше результатов,
+	 * и результатов с ограниченным числом записей: признак усечения результата передается заголовком
+	 * ответа, который отправляется до записи тела ответа.
+	 * 
+	 * @param region имя таблицы или метода генератора (область кэша результатов)
+	 * @param sql запрос
+	 * @param parameters параметры запроса
+	 * @param tag тег сущности ответа по версии таблицы или {@code null}
+	 * @param bean параметры HTTP запроса
+	 * @return результат выполнения запроса
+	 * @throws RestException возникшая ошибка
+	 */
+	private Response query(String region, String sql, ArrayList<Object> parameters, EntityTag tag, BeanRequest bean) throws RestException {
 		try {
-			result = database.metadata("getPrimaryKeys", null, schema, table);
-			while (result.next()) {
-				list.add(result.getString(4)); // имя колонки COLUMN_NAME
+			StatementLimits limits = getStatementLimits();
+			if (streaming && limits.getMaxRows(region) < 1 && !getResults().isCached(region)) {
+				MediaType type = bean.getMediaType();
+				Trace trace = bean.getTrace();
+				trace.setSql(sql, parameters.size());
+				long begin = trace.begin();
+				ResultStream stream = new ResultStream(getDataSource(), sql, parameters, fetchSize, limits.getTimeout(region),
+						type, bean.getTimestampFormat(), isColumnar(bean));
+				trace.end(Trace.EXECUTE, begin);
+				return Response.ok(stream, type).tag(tag).build();
 			}
+			return ok(select(region, sql, parameters, bean), tag, bean).build();
 		} catch (Exception e) {
-			// Ошибка вызова сервиса.
-			throw new RestException("RST0007E", null, e, lang);
+			throw new RestException("RST0001E", null, e, bean.getLang());
 		}
-		return list;
 	}
 	
 	/**
-	 * Получить экземпляр класса SQL генератора.
+	 * Выполнить SQL запрос SELECT, для таблиц и методов генераторов, определенных параметрами {@code cacheTables}
+	 * и {@code cacheQueries}, - с использованием кэша результатов. При установленном параметре {@code coalesce}
+	 * одновременно выполняемые одинаковые запросы объединяются (см. {@link QueryCoalescer}).
+	 * 
+	 * @param region имя таблицы или метода генератора (область кэша результатов)
+	 * @param sql запрос
+	 * @param parameters параметры запроса
+	 * @param bean параметры HTTP запроса, определяющие формат выдачи
+	 * @return результат выполнения запроса
+	 * @throws Exception ошибка выполнения
+	 */
+	private RowTable select(String region, String sql, ArrayList<Object> parameters, BeanRequest bean) throws Exception {
+		ResultCache results = getResults();
+		boolean cached = results.isCached(region);
+		if (!cached && !coalesce) {
+			RowTable table = read(region, sql, parameters, bean.getTrace());
+			table.setColumnar(isColumnar(bean));
+			return table;
+		}
+		Callable<RowTable> loader = () -> read(region, sql, parameters, bean.getTrace());
+		if (coalesce) {
+			Callable<RowTable> select = loader;
+			loader = () -> coalescer.get(sql, parameters, select);
+		}
+		RowTable shared = cached ? results.get(region, sql, parameters, loader) : loader.call();
+		// записи общего результата не изменяются, список записей копируется
+		RowTable table = new RowTable(shared.getColumns(), shared.getTypes(), new ArrayList<Object[]>(shared.getRows()));
+		table.setColumnar(isColumnar(bean));
+		table.setTruncated(shared.isTruncated());
+		return table;
+	}
+	
+	/**
+	 * Выполнить SQL запрос SELECT с ограничениями времени выполнения и числа записей результата
+	 * (параметры {@code queryTimeout}, {@code maxRows}, {@code queryTimeouts}, {@code maxRowsLimits}).
+	 * Запрос с ограничением времени выполнения или числа записей при определенном параметре {@code resource}
+	 * выполняется непосредственно через JDBC, число записей ограничивается на стороне БД. Иначе запрос
+	 * выполняется адаптером БД, лишние записи отбрасываются при чтении результата.
+	 * 
+	 * @param region имя таблицы или метода генератора
+	 * @param sql запрос
+	 * @param parameters параметры запроса
+	 * @param trace время выполнения этапов обработки запроса
+	 * @return результат выполнения запроса, не более максимального числа записей
+	 * @throws Exception ошибка выполнения
+	 */
+	private RowTable read(String region, String sql, ArrayList<Object> parameters, Trace trace) throws Exception {
+		StatementLimits limits = getStatementLimits();
+		int timeout = limits.getTimeout(region);
+		int rows = limits.getMaxRows(region);
+		trace.setSql(sql, parameters.size());
+		long begin = trace.begin();
+		if (resource == null || (timeout < 1 && rows < 1)) {
+			// адаптер БД не разделяет ожидание соединения и выполнение запроса
+			ResultSet result = database.select(sql, parameters);
+			begin = trace.end(Trace.EXECUTE, begin);
+			RowTable table = new RowTable(result, rows);
+			trace.end(Trace.FETCH, begin);
+			return table;
+		}
+		long wait = begin;
+		return Transaction.execute(getDataSource(), connection -> {
+			long execute = trace.end(Trace.WAIT, wait);
+			try (PreparedStatement statement = connection.prepareStatement(sql)) {
+				if (timeout > 0) statement.setQueryTimeout(timeout);
+				// дополнительная запись - признак усечения результата
+				if (rows > 0) statement.setMaxRows(rows + 1);
+				for (int index = 0; index < parameters.size(); index++) {
+					statement.setObject(index + 1, parameters.get(index));
+				}
+				try (ResultSet result = statement.executeQuery()) {
+					long fetch = trace.end(Trace.EXECUTE, execute);
+					RowTable table = new RowTable(result, rows);
+					trace.end(Trace.FETCH, fetch);
+					return table;
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Получить ограничения выполнения SQL запросов SELECT, при первом обращении - создать.
 	 * 
-	 * @param name имя класса
-	 * @return созданный экземпляр класса
-	 * @throws RestExceprion, если класс не найден
+	 * @return ограничения
 	 */
-	private Object getObject(String name, String lang) throws RestException {
-		Object object = generators.get(name);
-		if (object != null) return object;
-		for (String packageClass : packages ) {
+	private StatementLimits getStatementLimits() {
+		StatementLimits current = statementLimits;
+		if (current == null) {
+			synchronized (this) {
+				if (statementLimits == null) {
+					statementLimits = new StatementLimits(queryTimeout, maxRows, getLimits(queryTimeouts), getLimits(maxRowsLimits));
+				}
+				current = statementLimits;
+			}
+		}
+		return current;
+	}
+	
+	/**
+	 * Отметить модификацию таблицы методами сервиса: очистить кэш результатов таблицы и увеличить версию таблицы.
+	 * 
+	 * @param table имя модифицированной таблицы, {@code null} - модифицированные таблицы неизвестны
+	 */
+	private void modified(String table) {
+		if (table == null) {
+			getResults().invalidateAll();
+		} else {
+			getResults().invalidate(table);
+		}
+		versions.modified(table);
+	}
+	
+	/**
+	 * Получить тег сущности ответа по версии таблицы (параметр {@code etag="version"}).
+	 * 
+	 * @param region имя таблицы или метода генератора
+	 * @param table {@code true} - имя таблицы, {@code false} - имя метода генератора
+	 * @param bean параметры HTTP запроса
+	 * @return тег сущности ответа или {@code null}, если теги по версии таблиц не используются
+	 */
+	private EntityTag getVersionTag(String region, boolean table, BeanRequest bean) {
+		if (!"version".equals(etag)) return null;
+		String version = table ? versions.getTable(region) : versions.getAll();
+		return new EntityTag(version + (MediaType.APPLICATION_XML_TYPE.isCompatible(bean.getMediaType()) ? ".x" : ".j"));
+	}
+	
+	/**
+	 * Сформировать ответ с результатом запроса SELECT. При параметре {@code etag="hash"} результат запроса
+	 * записывается в буфер, тег сущности ответа - хэш MD5 содержимого буфера. Если тег совпадает с тегом,
+	 * известным клиенту, возвращается ответ 304 (Not Modified) без тела ответа. Усеченный результат запроса
+	 * отмечается заголовком ответа {@code X-Truncated: true}.
+	 * 
+	 * @param rows результат запроса
+	 * @param tag тег сущности ответа по версии таблицы или {@code null}
+	 * @param bean параметры HTTP запроса
+	 * @return ответ
+	 * @throws Exception ошибка записи результата запроса
+	 */
+	private Response.ResponseBuilder ok(RowTable rows, EntityTag tag, BeanRequest bean) throws Exception {
+		bean.getSeries().read(rows.size());
+		String truncated = rows.isTruncated() ? "true" : null;
+		if (tag != null) return Response.ok(rows).tag(tag).header("X-Truncated", truncated);
+		if (!"hash".equals(etag)) return Response.ok(rows).header("X-Truncated", truncated);
+		MediaType type = bean.getMediaType();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		long begin = bean.getTrace().begin();
+		rows.write(RowWriter.getInstance(type, out, bean.getTimestampFormat()));
+		bean.getTrace().end(Trace.SERIALIZE, begin);
+		byte[] body = out.toByteArray();
+		EntityTag hash = new EntityTag(Base64.getUrlEncoder().withoutPadding().encodeToString(MessageDigest.getInstance("MD5").digest(body)));
+		Response.ResponseBuilder notModified = bean.evaluatePreconditions(hash);
+		if (notModified != null) return notModified;
+		return Response.ok(body, type).tag(hash).header("X-Truncated", truncated);
+	}
+	
+	/**
+	 * Проверить тег сущности ответа по версии таблицы.
+	 * 
+	 * @param tag тег сущности ответа или {@code null}
+	 * @param bean параметры HTTP запроса
+	 * @return ответ 304 (Not Modified), если тег совпадает с тегом, известным клиенту, иначе - {@code null}
+	 */
+	private Response notModified(EntityTag tag, BeanRequest bean) {
+		if (tag == null) return null;
+		Response.ResponseBuilder builder = bean.evaluatePreconditions(tag);
+		return builder == null ? null : builder.build();
+	}
+	
+	/**
+	 * Получить кэш результатов запросов, при первом обращении - создать.
+	 * 
+	 * @return кэш результатов
+	 */
+	private ResultCache getResults() {
+		ResultCache cache = results;
+		if (cache == null) {
+			synchronized (this) {
+				if (results == null) {
+					results = new ResultCache(split(cacheTables), split(cacheQueries), Math.max(1, cacheSize), cacheTtl * 1000L);
+				}
+				cache = results;
+			}
+		}
+		return cache;
+	}
+	
+	/**
+	 * Выполнить метод сервиса: при определенном параметре {@code asyncThreads} - исполнителем методов сервиса,
+	 * иначе - в текущем потоке. Запрос, превышающий ограничения числа одновременно выполняемых запросов
+	 * (параметры {@code tableLimit}, {@code tableLimits}, {@code endpointLimits}) или число методов, ожидающих
+	 * выполнения исполнителем (параметр {@code asyncQueue}), сразу отклоняется.
+	 * 
+	 * <p>
+	 * Время выполнения, число записей, объем тела запроса и ответа и ошибки метода регистрируются в метриках
+	 * сервиса (см. {@link #metrics()}).
+	 * 
+	 * @param response асинхронный ответ
+	 * @param bean параметры запроса
+	 * @param operation метод сервиса: get, post, load, put, delete, select, execute, batch или info
+	 * @param table имя таблицы или класса генератора SQL запросов
+	 * @param method выполняемый метод
+	 */
+	private void async(AsyncResponse response, BeanRequest bean, String operation, String table, AsyncExecutor.Work method) {
+		String lang = bean.getLang();
+		Metrics.Series series = metrics.getSeries(operation, table);
+		bean.setSeries(series);
+		long start = System.nanoTime();
+		String endpoint = getEndpoint(operation);
+		AdmissionControl admission = getAdmission();
+		String exhausted = admission.acquire(endpoint, table);
+		if (exhausted != null) {
+			metrics.error(series, "RST0034E");
+			// Превышено число одновременно выполняемых запросов к {0}, повторите запрос позже
+			response.resume(new RestException("RST0034E", new Object[] {exhausted}, lang, 503));
+			return;
+		}
+		Runnable release = () -> admission.release(endpoint, table);
+		AsyncExecutor.Work work = () -> {
 			try {
-				object = Class.forName(packageClass + '.' + name).newInstance();
-				generators.put(name, object);
-				return object;
+				return measure(method.run(), bean, operation);
 			} catch (Exception e) {
-				// Подавить исключение
+				metrics.error(series, e);
+				throw e;
+			} finally {
+				series.observe(System.nanoTime() - start);
 			}
+		};
+		AsyncExecutor executor = getExecutor();
+		if (executor == null) {
+			try {
+				AsyncExecutor.resume(response, work.run());
+			} catch (Throwable e) {
+				response.resume(e);
+			} finally {
+				release.run();
+			}
+			return;
+		}
+		if (asyncTimeout > 0) {
+			response.setTimeoutHandler(timeout -> {
+				metrics.error(series, "RST0033E");
+				// Время ожидания выполнения запроса ({0} с) истекло
+				timeout.resume(new RestException("RST0033E", new Object[] {asyncTimeout}, lang, 503));
+			});
+			response.setTimeout(asyncTimeout, TimeUnit.SECONDS);
+		}
+		if (!executor.execute(response, work, release)) {
+			release.run();
+			metrics.error(series, "RST0034E");
+			// Превышено число одновременно выполняемых запросов к {0}, повторите запрос позже
+			response.resume(new RestException("RST0034E", new Object[] {endpoint}, lang, 503));
 		}
-		throw new RestException("RST0005E", new Object[] {name}, lang, 404);
 	}
 	
 	/**
-	 * Выполнить SQL запрос SELECT.
+	 * Получить группу методов сервиса.
 	 * 
-	 * @param sql запрос
-	 * @param parameters параметры запроса
+	 * @param operation метод сервиса
+	 * @return группа методов сервиса: table, query или info
+	 */
+	private static String getEndpoint(String operation) {
+		switch (operation) {
+		case "select":
+		case "execute":
+			return "query";
+		case "info":
+			return "info";
+		default:
+			return "table";
+		}
+	}
+	
+	/**
+	 * Зарегистрировать в метриках сервиса число записей и объем тела ответа. Результат запроса SELECT
+	 * записывается в тело ответа с подсчетом объема записанных данных и времени записи.
+	 * 
+	 * <p>
+	 * При заголовке запроса {@code X-Trace: true} время этапов обработки запроса выдается в заголовке ответа
+	 * {@code Server-Timing}. Время записи результата в тело ответа в заголовок не входит, так как заголовок
+	 * отправляется до начала записи (кроме ответов с тегом сущности по хэшу тела ответа). Запросы, время обработки
+	 * которых не меньше значения параметра {@code slowQuery}, записываются в журнал медленных запросов
+	 * после записи тела ответа.
+	 * 
+	 * @param response ответ метода сервиса
+	 * @param bean параметры запроса
+	 * @param operation метод сервиса
+	 * @return ответ
+	 */
+	private Response measure(Response response, BeanRequest bean, String operation) {
+		Metrics.Series series = bean.getSeries();
+		Trace trace = bean.getTrace();
+		if (bean.isTraced()) {
+			response = Response.fromResponse(response).header("Server-Timing", trace.toServerTiming()).build();
+		}
+		Object entity = response.getEntity();
+		if (entity instanceof BeanResponse) {
+			series.written(((BeanResponse) entity).getResult());
+		} else if (entity instanceof byte[]) {
+			series.sent(((byte[]) entity).length);
+		} else if (entity instanceof RowTable) {
+			RowTable rows = (RowTable) entity;
+			MediaType type = bean.getMediaType();
+			String pattern = bean.getTimestampFormat();
+			StreamingOutput output = out -> {
+				long begin = trace.begin();
+				try {
+					rows.write(RowWriter.getInstance(type, series.count(out), pattern));
+				} finally {
+					trace.end(Trace.SERIALIZE, begin);
+					logSlow(trace, operation, bean);
+				}
+			};
+			return Response.fromResponse(response).entity(output).type(type).build();
+		} else if (entity instanceof StreamingOutput) {
+			StreamingOutput stream = (StreamingOutput) entity;
+			// освобождение ресурсов потока, если тело ответа не записывается (см. AsyncExecutor.resume)
+			class Output implements StreamingOutput, Closeable {
+
+				@Override
+				public void write(OutputStream out) throws IOException {
+					long begin = trace.begin();
+					try {
+						stream.write(series.count(out));
+					} finally {
+						// для потоковой выдачи время записи включает выборку записей из курсора
+						trace.end(Trace.SERIALIZE, begin);
+						if (stream instanceof ResultStream) series.read(((ResultStream) stream).getRows());
+						logSlow(trace, operation, bean);
+					}
+				}
+
+				@Override
+				public void close() throws IOException {
+					if (stream instanceof Closeable) ((Closeable) stream).close();
+				}
+
+			}
+			return Response.fromResponse(response).entity(new Output()).build();
+		}
+		logSlow(trace, operation, bean);
+		return response;
+	}
+	
+	/**
+	 * Записать запрос в журнал медленных запросов, если время его обработки не меньше значения параметра
+	 * {@code slowQuery}.
+	 * 
+	 * @param trace время выполнения этапов обработки запроса
+	 * @param operation метод сервиса
+	 * @param bean параметры запроса
+	 */
+	private void logSlow(Trace trace, String operation, BeanRequest bean) {
+		if (slowQuery < 1 || trace.getElapsed() < slowQuery * 1000000L) return;
+		SLOW.warn("{} {} {}", operation, bean.getObject(), trace);
+	}
+	
+	/**
+	 * Получить ограничения числа одновременно выполняемых запросов, при первом обращении - создать.
+	 * 
+	 * @return ограничения
+	 */
+	private AdmissionControl getAdmission() {
+		AdmissionControl current = admission;
+		if (current == null) {
+			synchronized (this) {
+				if (admission == null) {
+					admission = new AdmissionControl(tableLimit, getLimits(tableLimits), getLimits(endpointLimits));
+				}
+				current = admission;
+			}
+		}
+		return current;
+	}
+	
+	/**
+	 * Преобразовать список ограничений в формате {@code имя=число;...}.
+	 * 
+	 * @param value список ограничений
+	 * @return ограничения по именам
+	 */
+	private HashMap<String, Integer> getLimits(String value) {
+		HashMap<String, Integer> limits = new HashMap<String, Integer>();
+		for (String item : split(value)) {
+			int pos = item.lastIndexOf('=');
+			if (pos < 1) continue;
+			limits.put(item.substring(0, pos).trim(), Integer.valueOf(item.substring(pos + 1).trim()));
+		}
+		return limits;
+	}
+	
+	/**
+	 * Получить исполнитель методов сервиса, при первом обращении - создать.
+	 * 
+	 * @return исполнитель или {@code null}, если методы выполняются в потоке контейнера сервлетов
+	 */
+	private AsyncExecutor getExecutor() {
+		if (asyncThreads < 1 || stopped) return null;
+		AsyncExecutor current = executor;
+		if (current == null) {
+			synchronized (this) {
+				if (executor == null) executor = new AsyncExecutor(asyncThreads, asyncQueue);
+				current = executor;
+			}
+		}
+		return current;
+	}
+	
+	/**
+	 * Получить источник данных БД, определенный параметром {@code resource}.
+	 * 
+	 * @return источник данных
+	 * @throws NamingException источник данных не найден
+	 */
+	private DataSource getDataSource() throws NamingException {
+		if (dataSource == null) {
+			dataSource = (DataSource) new InitialContext().lookup(resource);
+		}
+		return dataSource;
+	}
+	
+	/**
+	 * Создать экземпляр класса последовательного чтения записей тела запроса.
+	 * 
+	 * @param bean параметры HTTP запроса, определяющие тип данных и кодировку тела запроса
+	 * @param body тело запроса
+	 * @return экземпляр класса чтения
+	 * @throws RestException ошибка чтения тела запроса
+	 */
+	private RecordReader getReader(BeanRequest bean, InputStream body) throws RestException {
+		MediaType type = bean.getContentType();
+		try {
+			return RecordReader.getInstance(type, body, type == null ? null : type.getParameters().get(MediaType.CHARSET_PARAMETER));
+		} catch (IOException e) {
+			// Ошибка чтения тела запроса: {0}
+			throw new RestException("RST0032E", new Object[] {e.getMessage()}, bean.getLang(), 400);
+		}
+	}
+	
+	/**
+	 * Прочитать очередную запись тела запроса.
+	 * 
+	 * @param reader экземпляр класса чтения
 	 * @param lang язык локализации
-	 * @param list результат выполнения запроса
-	 * @return  
-	 * @throws RestException возникшая ошибка
+	 * @return запись или {@code null}, если записей больше нет
+	 * @throws RestException ошибка чтения или нарушение формата тела запроса
 	 */
-	private ArrayList<HashMap<String, Object>> query(String sql, ArrayList<Object> parameters, String lang) throws RestException {
+	private HashMap<String, Object> next(RecordReader reader, String lang) throws RestException {
 		try {
-			ResultSet result = database.select(sql, parameters);
-			return toArrayList(result);
-		} catch (Exception e) {
-			throw new RestException("RST0001E", null, e, lang);
+			return reader.next();
+		} catch (IOException e) {
+			// Ошибка чтения тела запроса: {0}
+			throw new RestException("RST0032E", new Object[] {e.getMessage()}, lang, 400);
 		}
 	}
 	
 	/**
-	 * Конвертер ResultSet в ArrayList.
+	 * Конвертер ResultSet в компактное представление результата запроса.
 	 * 
 	 * @param result результат выполнения SQL запроса
+	 * @param bean параметры HTTP запроса, определяющие формат выдачи
 	 * @return результат выполнения запроса
 	 * @throws Exception ошибка выполнения
 	 */
-	private ArrayList<HashMap<String, Object>> toArrayList(ResultSet result) throws Exception {
-		ArrayList<HashMap<String, Object>> list = new ArrayList<HashMap<String, Object>>(); 
-		ResultSetMetaData metadata = result.getMetaData();
-		while (result.next()) {
-			HashMap<String, Object> record = new HashMap<String, Object>(); 
-			for (int column = 0; column < metadata.getColumnCount(); ) {
-				column++;
-				record.put(metadata.getColumnName(column), result.getObject(column));
-			}
-			list.add(record);
-		}
-		return list;
+	private RowTable toRowTable(ResultSet result, BeanRequest bean) throws Exception {
+		RowTable table = new RowTable(result);
+		table.setColumnar(isColumnar(bean));
+		return table;
+	}
+	
+	/**
+	 * Проверить определение табличного формата выдачи результата запроса.
+	 * 
+	 * @param bean параметры HTTP запроса
+	 * @return {@code true}, если определен параметр {@code $shape=columnar}
+	 */
+	private boolean isColumnar(BeanRequest bean) {
+		return "columnar".equals(bean.getOption("shape"));
 	}
 	
 	/**
-	 * Выполнить SQL запрос INSERT, UPDATE или DELETE.
+	 * Выполнить SQL запрос INSERT, UPDATE или DELETE. После выполнения запроса очищается кэш результатов
+	 * модифицированной таблицы и увеличивается версия таблицы.
 	 * 
+	 * @param table имя модифицируемой таблицы, {@code null} - таблица неизвестна, очищается весь кэш результатов
 	 * @param sql запрос
 	 * @param parameters устанавливаемые параметры запроса
+	 * @param trace время выполнения этапов обработки запроса
 	 * @return результат выполнения запроса
 	 * @throws RestException сообщение об ошибке при ее возникновении
 	 */
-	private BeanResponse query(String sql, ArrayList<Object> parameters) throws Exception {
+	private BeanResponse query(String table, String sql, ArrayList<Object> parameters, Trace trace) throws Exception {
 		String query = sql.substring(0, sql.indexOf(' ')).toUpperCase();
+		trace.setSql(sql, parameters.size());
+		long begin = trace.begin();
 		ExecuteSet set = database.execute(sql, parameters);
+		trace.end(Trace.EXECUTE, begin);
+		modified(table);
 		BeanResponse beanResponse;
 		if (set.getKeys() == null) {
 			beanResponse = new BeanResponse(query, set.getRecords());
 		} else {
 			BeanResponseKeys beanResponseKeys = new BeanResponseKeys(query, set.getRecords());
-			beanResponseKeys.setKeys(toArrayList(set.getKeys()));
+			beanResponseKeys.setKeys(new RowTable(set.getKeys()).toArrayList());
 			beanResponse = beanResponseKeys;
 		}
 		beanResponse.setTimer(set.getTimer());
@@ -0,0 +1,79 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Счетчики версий таблиц, увеличиваемые при модификации таблиц методами сервиса. Версии используются
+ * для формирования тегов сущностей (ETag) ответов без выполнения запроса к БД. Модификации таблиц в обход
+ * сервиса счетчиками не учитываются.
+ *
+ * <p>
+ * Тег содержит случайный идентификатор экземпляра сервиса, поэтому теги, выданные до перезапуска сервиса
+ * или другим экземпляром сервиса, не совпадают с текущими тегами.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class TableVersions {
+
+	/**
+	 * Идентификатор экземпляра сервиса
+	 */
+	private final String instance = Long.toHexString(UUID.randomUUID().getMostSignificantBits());
+
+	/**
+	 * Версии таблиц по имени таблицы в нижнем регистре
+	 */
+	private final ConcurrentHashMap<String, AtomicLong> tables = new ConcurrentHashMap<String, AtomicLong>();
+
+	/**
+	 * Версия, увеличиваемая при модификации неизвестных таблиц (запросы генераторов SQL запросов)
+	 */
+	private final AtomicLong all = new AtomicLong();
+
+	/**
+	 * Версия, увеличиваемая при любой модификации
+	 */
+	private final AtomicLong any = new AtomicLong();
+
+	/**
+	 * Отметить модификацию таблицы.
+	 *
+	 * @param table имя таблицы, {@code null} - модифицируемые таблицы неизвестны
+	 */
+	void modified(String table) {
+		if (table == null) {
+			all.incrementAndGet();
+		} else {
+			tables.computeIfAbsent(table.toLowerCase(Locale.ROOT), name -> new AtomicLong()).incrementAndGet();
+		}
+		any.incrementAndGet();
+	}
+
+	/**
+	 * Получить версию содержимого таблицы.
+	 *
+	 * @param table имя таблицы
+	 * @return версия таблицы
+	 */
+	String getTable(String table) {
+		AtomicLong version = tables.get(table.toLowerCase(Locale.ROOT));
+		return instance + '.' + (version == null ? 0 : version.get()) + '.' + all.get();
+	}
+
+	/**
+	 * Получить версию содержимого всех таблиц.
+	 *
+	 * @return версия всех таблиц
+	 */
+	String getAll() {
+		return instance + '.' + any.get();
+	}
+
+}
@@ -0,0 +1,136 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.util.Locale;
+
+/**
+ * Время выполнения этапов обработки HTTP запроса: формирование текста SQL запроса, ожидание соединения
+ * с БД, выполнение SQL запроса, выборка записей и запись результата в тело ответа. Время этапов выдается
+ * в заголовке ответа {@code Server-Timing} и в журнал медленных запросов.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class Trace {
+
+	/**
+	 * Формирование текста SQL запроса
+	 */
+	static final int SQL = 0;
+
+	/**
+	 * Ожидание соединения с БД
+	 */
+	static final int WAIT = 1;
+
+	/**
+	 * Выполнение SQL запроса
+	 */
+	static final int EXECUTE = 2;
+
+	/**
+	 * Выборка записей результата
+	 */
+	static final int FETCH = 3;
+
+	/**
+	 * Запись результата в тело ответа
+	 */
+	static final int SERIALIZE = 4;
+
+	private static final String[] NAMES = {"sql", "wait", "execute", "fetch", "serialize"};
+
+	private final long start = System.nanoTime();
+
+	/**
+	 * Время этапов в наносекундах
+	 */
+	private final long[] stages = new long[NAMES.length];
+
+	/**
+	 * Текст последнего выполненного SQL запроса
+	 */
+	private volatile String sql;
+
+	/**
+	 * Число параметров последнего выполненного SQL запроса
+	 */
+	private volatile int binds;
+
+	/**
+	 * Получить время начала этапа.
+	 *
+	 * @return время начала этапа в наносекундах
+	 */
+	long begin() {
+		return System.nanoTime();
+	}
+
+	/**
+	 * Завершить этап.
+	 *
+	 * @param stage этап
+	 * @param begin время начала этапа, полученное методом {@link #begin()}
+	 * @return время завершения этапа в наносекундах
+	 */
+	long end(int stage, long begin) {
+		long end = System.nanoTime();
+		stages[stage] += end - begin;
+		return end;
+	}
+
+	/**
+	 * Запомнить выполняемый SQL запрос.
+	 *
+	 * @param sql текст запроса
+	 * @param binds число параметров запроса
+	 */
+	void setSql(String sql, int binds) {
+		this.sql = sql;
+		this.binds = binds;
+	}
+
+	/**
+	 * Получить время, прошедшее с начала обработки HTTP запроса.
+	 *
+	 * @return время в наносекундах
+	 */
+	long getElapsed() {
+		return System.nanoTime() - start;
+	}
+
+	/**
+	 * Сформировать значение заголовка {@code Server-Timing}, время этапов - в миллисекундах.
+	 *
+	 * @return значение заголовка, например, {@code sql;dur=0.041, execute;dur=3.215, total;dur=4.102}
+	 */
+	String toServerTiming() {
+		StringBuilder builder = new StringBuilder();
+		for (int stage = 0; stage < NAMES.length; stage++) {
+			if (stages[stage] == 0) continue;
+			append(builder, NAMES[stage], stages[stage]).append(", ");
+		}
+		return append(builder, "total", getElapsed()).toString();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("total=").append(toMillis(getElapsed())).append("ms");
+		for (int stage = 0; stage < NAMES.length; stage++) {
+			builder.append(' ').append(NAMES[stage]).append('=').append(toMillis(stages[stage])).append("ms");
+		}
+		return builder.append(" binds=").append(binds).append(" query=").append(sql).toString();
+	}
+
+	private static StringBuilder append(StringBuilder builder, String name, long nanos) {
+		return builder.append(name).append(";dur=").append(toMillis(nanos));
+	}
+
+	private static String toMillis(long nanos) {
+		return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+	}
+
+}
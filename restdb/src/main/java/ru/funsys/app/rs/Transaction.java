@@ -0,0 +1,61 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.sql.Connection;
+
+import javax.sql.DataSource;
+
+/**
+ * Выполнение работы с БД в одной транзакции на соединении, полученном из источника данных. При успешном
+ * завершении работы транзакция фиксируется, при ошибке - откатывается.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class Transaction {
+
+	/**
+	 * Работа, выполняемая в транзакции
+	 *
+	 * @param <T> тип результата
+	 */
+	interface Work<T> {
+
+		T run(Connection connection) throws Exception;
+
+	}
+
+	private Transaction() {
+	}
+
+	/**
+	 * Выполнить работу в транзакции.
+	 *
+	 * @param dataSource источник данных
+	 * @param work работа
+	 * @return результат работы
+	 * @throws Exception ошибка выполнения, транзакция откачена
+	 */
+	static <T> T execute(DataSource dataSource, Work<T> work) throws Exception {
+		Connection connection = dataSource.getConnection();
+		try {
+			boolean autoCommit = connection.getAutoCommit();
+			if (autoCommit) connection.setAutoCommit(false);
+			try {
+				T result = work.run(connection);
+				connection.commit();
+				return result;
+			} catch (Exception e) {
+				connection.rollback();
+				throw e;
+			} finally {
+				if (autoCommit) connection.setAutoCommit(true);
+			}
+		} finally {
+			connection.close();
+		}
+	}
+
+}
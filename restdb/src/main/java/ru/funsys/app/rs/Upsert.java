@@ -0,0 +1,119 @@
+/**
+ *
+ */
+package ru.funsys.app.rs;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Формирование запроса вставки записи с модификацией существующей записи при совпадении значений первичного
+ * ключа (upsert). Синтаксис запроса определяется СУБД соединения:
+ * <ul>
+ * <li>PostgreSQL, SQLite - {@code INSERT ... ON CONFLICT (key) DO UPDATE SET ...};</li>
+ * <li>MySQL, MariaDB - {@code INSERT ... ON DUPLICATE KEY UPDATE ...};</li>
+ * <li>остальные СУБД - {@code MERGE INTO ... USING (VALUES (...)) ...} стандарта SQL.</li>
+ * </ul>
+ * Если все поля записи входят в первичный ключ, существующая запись не модифицируется.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+class Upsert {
+
+	private Upsert() {
+	}
+
+	/**
+	 * Сформировать запрос. Параметры запроса - значения полей записи в порядке списка полей.
+	 *
+	 * @param connection соединение с БД
+	 * @param table имя таблицы
+	 * @param columns поля записи
+	 * @param key поля первичного ключа, все поля ключа входят в список полей записи
+	 * @return запрос
+	 * @throws SQLException ошибка получения сведений о СУБД
+	 */
+	static String getSql(Connection connection, String table, List<String> columns, List<String> key) throws SQLException {
+		String product = connection.getMetaData().getDatabaseProductName().toLowerCase();
+		ArrayList<String> set = new ArrayList<String>(); // модифицируемые поля
+		for (String column : columns) {
+			if (!key.contains(column)) set.add(column);
+		}
+		StringBuilder builder = new StringBuilder();
+		if (product.contains("postgres") || product.contains("sqlite")) {
+			appendInsert(builder, table, columns);
+			builder.append(" ON CONFLICT (");
+			appendList(builder, key, "", "");
+			if (set.isEmpty()) {
+				builder.append(") DO NOTHING");
+			} else {
+				builder.append(") DO UPDATE SET ");
+				appendList(builder, set, " = EXCLUDED.", "");
+			}
+		} else if (product.contains("mysql") || product.contains("mariadb")) {
+			appendInsert(builder, table, columns);
+			builder.append(" ON DUPLICATE KEY UPDATE ");
+			if (set.isEmpty()) {
+				builder.append(key.get(0)).append(" = ").append(key.get(0));
+			} else {
+				appendList(builder, set, " = VALUES(", ")");
+			}
+		} else {
+			builder.append("MERGE INTO ").append(table).append(" t USING (VALUES (");
+			appendParameters(builder, columns.size());
+			builder.append(")) s (");
+			appendList(builder, columns, "", "");
+			builder.append(") ON ");
+			for (int index = 0; index < key.size(); index++) {
+				if (index > 0) builder.append(" AND ");
+				builder.append("t.").append(key.get(index)).append(" = s.").append(key.get(index));
+			}
+			if (!set.isEmpty()) {
+				builder.append(" WHEN MATCHED THEN UPDATE SET ");
+				for (int index = 0; index < set.size(); index++) {
+					if (index > 0) builder.append(", ");
+					builder.append(set.get(index)).append(" = s.").append(set.get(index));
+				}
+			}
+			builder.append(" WHEN NOT MATCHED THEN INSERT (");
+			appendList(builder, columns, "", "");
+			builder.append(") VALUES (");
+			for (int index = 0; index < columns.size(); index++) {
+				if (index > 0) builder.append(", ");
+				builder.append("s.").append(columns.get(index));
+			}
+			builder.append(')');
+		}
+		return builder.toString();
+	}
+
+	private static void appendInsert(StringBuilder builder, String table, List<String> columns) {
+		builder.append("INSERT INTO ").append(table).append(" (");
+		appendList(builder, columns, "", "");
+		builder.append(") VALUES (");
+		appendParameters(builder, columns.size());
+		builder.append(')');
+	}
+
+	/**
+	 * Добавить список полей через запятую, каждое поле {@code name} записывается как
+	 * {@code name + infix + name + suffix}, при пустом {@code infix} - как {@code name}.
+	 */
+	private static void appendList(StringBuilder builder, List<String> names, String infix, String suffix) {
+		for (int index = 0; index < names.size(); index++) {
+			if (index > 0) builder.append(", ");
+			builder.append(names.get(index));
+			if (!infix.isEmpty()) builder.append(infix).append(names.get(index)).append(suffix);
+		}
+	}
+
+	private static void appendParameters(StringBuilder builder, int size) {
+		for (int index = 0; index < size; index++) {
+			builder.append(index == 0 ? "?" : ", ?");
+		}
+	}
+
+}
@@ -0,0 +1,39 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.provider;
+
+import java.io.IOException;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * Добавление заголовка {@code Retry-After} в ответы с кодом 503 (запрос отклонен из-за превышения ограничения
+ * числа одновременно выполняемых запросов или истечения времени ожидания), если заголовок не определен.
+ * Значение заголовка в секундах задается параметром {@code retry.after} сервлета Jersey, по умолчанию - 1.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+@Provider
+public class RetryAfterFilter implements ContainerResponseFilter {
+
+	@Context
+	private Configuration configuration;
+
+	@Override
+	public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) throws IOException {
+		if (responseContext.getStatus() != Response.Status.SERVICE_UNAVAILABLE.getStatusCode()) return;
+		if (responseContext.getHeaders().containsKey(HttpHeaders.RETRY_AFTER)) return;
+		Object value = configuration.getProperty("retry.after");
+		responseContext.getHeaders().putSingle(HttpHeaders.RETRY_AFTER, value == null ? "1" : value.toString());
+	}
+
+}
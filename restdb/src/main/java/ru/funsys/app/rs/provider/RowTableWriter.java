@@ -0,0 +1,53 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.provider;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.Configuration;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import ru.funsys.app.rs.RowTable;
+import ru.funsys.app.rs.RowWriter;
+
+/**
+ * Провайдер записи результата запроса {@link RowTable} в тело ответа в формате JSON или XML.
+ *
+ * @author Валерий Лиховских
+ *
+ */
+@Provider
+@Produces({MediaType.APPLICATION_JSON, MediaType.APPLICATION_XML})
+public class RowTableWriter implements MessageBodyWriter<RowTable> {
+
+	@Context
+	private Configuration configuration;
+
+	@Override
+	public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return RowTable.class.isAssignableFrom(type);
+	}
+
+	@Override
+	public long getSize(RowTable table, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+		return -1;
+	}
+
+	@Override
+	public void writeTo(RowTable table, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType,
+			MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream) throws IOException, WebApplicationException {
+		Object format = configuration.getProperty("timestamp.format");
+		table.write(RowWriter.getInstance(mediaType, entityStream, format == null ? null : format.toString()));
+	}
+
+}
@@ -0,0 +1,65 @@
+/**
+ *
+ */
+package ru.funsys.app.rs.provider;
+
+import java.util.LinkedHashSet;
+
+import javax.ws.rs.ext.Provider;
+
+import org.glassfish.jersey.server.ResourceConfig;
+import org.glassfish.jersey.server.spi.Container;
+import org.glassfish.jersey.server.spi.ContainerLifecycleListener;
+
+import ru.funsys.app.rs.TableService;
+
+/**
+ * Запуск экземпляров сервиса {@link TableService} при запуске приложения Jersey (прогрев сервиса начинается
+ * до поступления первого запроса, а не при первом обращении к сервису) и их остановка при остановке
+ * приложения (остановка исполнителя методов сервиса, в том числе при повторном развертывании приложения).
+ *
+ * @author Валерий Лиховских
+ *
+ */
+@Provider
+public class ServiceLifecycle implements ContainerLifecycleListener {
+
+	@Override
+	public void onStartup(Container container) {
+		for (TableService service : getServices(container)) {
+			service.start();
+		}
+	}
+
+	@Override
+	public void onReload(Container container) {
+		// при перезагрузке приложения прежнее приложение останавливается (onShutdown)
+		onStartup(container);
+	}
+
+	@Override
+	public void onShutdown(Container container) {
+		for (TableService service : getServices(container)) {
+			service.stop();
+		}
+	}
+
+	/**
+	 * Получить экземпляры сервиса, зарегистрированные в приложении.
+	 *
+	 * @param container контейнер приложения
+	 * @return экземпляры сервиса
+	 */
+	private static LinkedHashSet<TableService> getServices(Container container) {
+		LinkedHashSet<TableService> services = new LinkedHashSet<TableService>();
+		ResourceConfig configuration = container.getConfiguration();
+		for (Object instance : configuration.getInstances()) {
+			if (instance instanceof TableService) services.add((TableService) instance);
+		}
+		for (Object instance : configuration.getSingletons()) {
+			if (instance instanceof TableService) services.add((TableService) instance);
+		}
+		return services;
+	}
+
+}